@@ -0,0 +1,129 @@
+package main.java.bench;
+
+import main.java.GameEngine;
+import main.java.GameState;
+import main.java.GameView;
+import main.java.MineField;
+import main.java.NeighbourIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the headless {@link GameEngine}: playing a whole game by
+ * opening its safe cells in a random order, copying a game and taking a
+ * view of it.
+ * <p>
+ * Each game is played from the same seeded layout and order, so results can
+ * be compared between runs and commits. Besides games per millisecond,
+ * {@code playGame} reports the moves that opened cells per millisecond as
+ * its {@code moves} counter.
+ * <p>
+ * Run with: {@code mvn -P benchmark package && java -jar target/benchmarks.jar GameEngine}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GameEngineBenchmark {
+
+    public enum BoardSize {
+        BEGINNER(9, 9, 10),
+        INTERMEDIATE(16, 16, 40),
+        EXPERT(30, 16, 99),
+        LARGE(50, 50, 400);
+
+        final int width;
+        final int height;
+        final int mines;
+
+        BoardSize(int width, int height, int mines) {
+            this.width = width;
+            this.height = height;
+            this.mines = mines;
+        }
+    }
+
+    @Param({"BEGINNER", "INTERMEDIATE", "EXPERT", "LARGE"})
+    public BoardSize size;
+
+    @Param({"1"})
+    public long seed;
+
+    private GameEngine engine;
+    private GameView start;
+    // Ids of the safe cells, in the order they are opened
+    private int[] moves;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BitSet layout = MineField.plantMines(size.height, size.width, size.mines, new Random(seed));
+        engine = new GameEngine(size.width, size.height, size.mines,
+                new MineField(size.height, size.width, layout));
+        start = engine.view();
+
+        NeighbourIndex index = engine.getNeighbourIndex();
+        moves = new int[size.width * size.height - size.mines];
+        int count = 0;
+        for (int x = 0; x < size.width; x++) {
+            for (int y = 0; y < size.height; y++) {
+                // The layout is indexed as the field is, by x * height + y
+                if (!layout.get(x * size.height + y)) {
+                    moves[count++] = index.id(x, y);
+                }
+            }
+        }
+        Random random = new Random(seed);
+        for (int i = moves.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int move = moves[i];
+            moves[i] = moves[j];
+            moves[j] = move;
+        }
+    }
+
+    /**
+     * The moves made by {@link #playGame(MoveCounter)}, reported by JMH as a
+     * rate alongside the games played.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class MoveCounter {
+        public long moves;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            moves = 0;
+        }
+    }
+
+    /**
+     * @return the number of moves that opened at least one cell.
+     */
+    @Benchmark
+    public int playGame(MoveCounter counter) {
+        engine.restore(start);
+        int played = 0;
+        for (int i = 0; i < moves.length && engine.getGameState() == GameState.RUNNING; i++) {
+            if (engine.open(moves[i]) > 0) {
+                played++;
+            }
+        }
+        counter.moves += played;
+        return played;
+    }
+
+    @Benchmark
+    public GameEngine copy() {
+        return engine.copy();
+    }
+
+    @Benchmark
+    public GameView view() {
+        return engine.view();
+    }
+}
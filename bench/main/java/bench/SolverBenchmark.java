@@ -0,0 +1,181 @@
+package main.java.bench;
+
+import main.java.*;
+import main.java.solvers.*;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of each solver on a fixed mid-game position.
+ * <p>
+ * Positions are built from seeded mine layouts: the first cell with no
+ * neighbouring mines is opened and the single point solver is then applied
+ * until it makes no more progress. The same seed always gives the same
+ * position, so results can be compared between runs and commits.
+ * <p>
+ * Run with: {@code mvn -P benchmark package && java -jar target/benchmarks.jar}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+
+    public enum BoardSize {
+        BEGINNER(9, 9, 10),
+        INTERMEDIATE(16, 16, 40),
+        EXPERT(30, 16, 99),
+        LARGE(50, 50, 400);
+
+        final int width;
+        final int height;
+        final int mines;
+
+        BoardSize(int width, int height, int mines) {
+            this.width = width;
+            this.height = height;
+            this.mines = mines;
+        }
+    }
+
+    @Param({"BEGINNER", "INTERMEDIATE", "EXPERT", "LARGE"})
+    public BoardSize size;
+
+    @Param({"1"})
+    public long seed;
+
+    private MineSweeper game;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Some layouts are solved (or lost) by the first opening alone, so
+        // move on to the next seed until a position with a frontier is found
+        for (long s = seed; game == null; s++) {
+            MineSweeper candidate = createPosition(s);
+            if (candidate.getState() == GameState.RUNNING) {
+                game = candidate;
+            }
+        }
+    }
+
+    private MineSweeper createPosition(long layoutSeed) {
+        BitSet layout = MineField.plantMines(size.height, size.width, size.mines, new Random(layoutSeed));
+        MineSweeper position = new MineSweeper(size.width, size.height, size.mines,
+                new MineField(size.height, size.width, layout));
+
+        openFirstSafeCell(position, layout);
+        boolean changed = true;
+        while (changed && position.getState() == GameState.RUNNING) {
+            changed = false;
+            Map<Cell, Boolean> known = newSolver(SinglePointSolver.class, position).getKnownCells();
+            for (var pair : known.entrySet()) {
+                Cell cell = pair.getKey();
+                if (cell.getState() != CellState.CLOSED) {
+                    continue;
+                }
+                if (pair.getValue()) {
+                    position.setFlagged(cell.getX(), cell.getY(), true);
+                } else {
+                    position.openCell(cell.getX(), cell.getY());
+                }
+                changed = true;
+            }
+        }
+        return position;
+    }
+
+    private void openFirstSafeCell(MineSweeper position, BitSet layout) {
+        NeighbourIndex index = NeighbourIndex.of(size.width, size.height);
+        for (int id = 0; id < index.size(); id++) {
+            boolean nearMine = layout.get(id);
+            for (int i = index.start(id); i < index.end(id); i++) {
+                nearMine |= layout.get(index.neighbour(i));
+            }
+            if (!nearMine) {
+                position.openCell(index.x(id), index.y(id));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Create a solver without component caches, since the same position is
+     * solved on every invocation.
+     */
+    private static <T extends AbstractSolver> T newSolver(Class<T> solver, MineSweeper position) {
+        T instance;
+        try {
+            instance = solver.getDeclaredConstructor(Cell[][].class, int.class, int.class, int.class)
+                    .newInstance(position.getCells(), position.getWidth(), position.getHeight(), position.getMines());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return instance;
+    }
+
+    @Benchmark
+    public Map<Cell, Boolean> singlePointKnownCells() {
+        return newSolver(SinglePointSolver.class, game).getKnownCells();
+    }
+
+    @Benchmark
+    public Map<Cell, Boolean> patternKnownCells() {
+        return newSolver(PatternSolver.class, game).getKnownCells();
+    }
+
+    @Benchmark
+    public Map<Cell, Boolean> subsetKnownCells() {
+        return newSolver(SubsetSolver.class, game).getKnownCells();
+    }
+
+    @Benchmark
+    public Map<Cell, Boolean> gaussianKnownCells() {
+        return newSolver(GaussianSolver.class, game).getKnownCells();
+    }
+
+    @Benchmark
+    public Map<Cell, Boolean> pbKnownCells() {
+        return newSolver(MyPBSolver.class, game).getKnownCells();
+    }
+
+    @Benchmark
+    public Map<Cell, BigFraction> probabilities() {
+        return newSolver(ProbabilitySolver.class, game).getProbabilities();
+    }
+
+    @Benchmark
+    public Map<Cell, BigFraction> countingProbabilities() {
+        return newSolver(ModelCountingSolver.class, game).getProbabilities();
+    }
+
+    @Benchmark
+    public Map<Cell, Double> fastCountingProbabilities() {
+        ModelCountingSolver solver = newSolver(ModelCountingSolver.class, game);
+        solver.setFastArithmetic(true);
+        return solver.getApproximateProbabilities();
+    }
+
+    @Benchmark
+    public Map<Cell, ProbabilityEstimate> monteCarloEstimates() {
+        MonteCarloSolver solver = newSolver(MonteCarloSolver.class, game);
+        solver.setExactCells(0);
+        return solver.getEstimates();
+    }
+
+    @Benchmark
+    public Cell bestCell() {
+        return newSolver(ProbabilitySolver.class, game).getBestCell();
+    }
+
+    @Benchmark
+    public Cell lookaheadBestCell() {
+        return newSolver(LookaheadSolver.class, game).getBestCell();
+    }
+}
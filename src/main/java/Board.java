@@ -2,30 +2,190 @@ package main.java;
 
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * The state of every cell of a game. Open and flagged cells are kept as
+ * bitsets indexed as in {@link NeighbourIndex}, and the number of each open
+ * cell, as the mine field gave it when the cell was uncovered, in four bits,
+ * so a board takes under a byte per cell. {@link Cell}s are views onto the
+ * board and the cell array is only built when it is first asked for.
+ */
 public class Board {
 
+    private static final int NUMBER_BITS = 4;
+    private static final int NUMBERS_PER_WORD = Long.SIZE / NUMBER_BITS;
+    private static final long NUMBER_MASK = (1L << NUMBER_BITS) - 1;
+
     private final int width;
     private final int height;
     private final int mines;
-    private final Cell[][] cells;
     private final MineField field;
+    private final BitSet open;
+    private final BitSet flagged;
+    // Number of each open cell, -1 for a mine, packed sixteen to a word
+    private final long[] numbers;
+    private final List<CellStateListener> listeners;
+    private volatile Cell[][] cells;
+    // Reused between openings, grown as needed
+    private int[] openingQueue = new int[64];
+    private FrontierTracker frontier;
 
     public Board(int width, int height, int mines) {
+        this(width, height, mines, new MineField(height, width, mines));
+    }
+
+    public Board(int width, int height, int mines, long seed) {
+        this(width, height, mines, new MineField(height, width, mines, seed));
+    }
+
+    /**
+     * @param field mine field of the given dimensions, containing the given
+     *              number of mines.
+     */
+    public Board(int width, int height, int mines, MineField field) {
         this.width = width;
         this.height = height;
         this.mines = mines;
-        this.field = new MineField(height, width, mines);
-        this.cells = createCells();
+        this.field = field;
+        this.open = new BitSet(width * height);
+        this.flagged = new BitSet(width * height);
+        this.numbers = new long[(width * height + NUMBERS_PER_WORD - 1) / NUMBERS_PER_WORD];
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Start from the state of a headless game. The board plays on a copy of
+     * the engine's mine field, so the two carry on independently.
+     */
+    Board(GameEngine engine) {
+        this(engine.getWidth(), engine.getHeight(), engine.getMines(), engine.getField().copy());
+        for (int id = 0; id < width * height; id++) {
+            byte state = engine.getState(id);
+            if (state == GameEngine.FLAGGED) {
+                flagged.set(id);
+            } else if (state < GameEngine.CLOSED) {
+                open.set(id);
+                setNumber(id, state);
+            }
+        }
+    }
+
+    public void addCellStateListener(CellStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCellStateListener(CellStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the tracker keeping this board's land, sea and shore cells,
+     * created the first time it is asked for.
+     */
+    public synchronized FrontierTracker getFrontierTracker() {
+        if (frontier == null) {
+            frontier = new FrontierTracker(this, width, height);
+            addCellStateListener(frontier);
+        }
+        return frontier;
     }
 
     public MineField getField() {
         return this.field;
     }
 
+    /**
+     * Copy the state of every cell into an array indexed by cell id, in the
+     * form of a {@link GameEngine}'s states: an open cell holds its number
+     * and the others {@link GameEngine#CLOSED} or {@link GameEngine#FLAGGED}.
+     *
+     * @param target array of at least width * height states.
+     */
+    public synchronized void copyStatesInto(byte[] target) {
+        Arrays.fill(target, 0, width * height, GameEngine.CLOSED);
+        for (int id = flagged.nextSetBit(0); id >= 0; id = flagged.nextSetBit(id + 1)) {
+            target[id] = GameEngine.FLAGGED;
+        }
+        for (int id = open.nextSetBit(0); id >= 0; id = open.nextSetBit(id + 1)) {
+            target[id] = (byte) number(id);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private int id(int x, int y) {
+        return x * height + y;
+    }
+
+    public CellState getState(int x, int y) {
+        int id = id(x, y);
+        if (open.get(id)) {
+            return CellState.OPEN;
+        }
+        return flagged.get(id) ? CellState.FLAGGED : CellState.CLOSED;
+    }
+
+    /**
+     * Set a cell's state. A cell set to open is uncovered, so its number is
+     * known from then on.
+     */
+    public synchronized void setState(int x, int y, CellState state) {
+        CellState oldState = getState(x, y);
+        if (oldState == state) {
+            return;
+        }
+        int id = id(x, y);
+        if (state == CellState.OPEN) {
+            setNumber(id, field.uncover(x, y));
+        }
+        open.set(id, state == CellState.OPEN);
+        flagged.set(id, state == CellState.FLAGGED);
+        Cell cell = getCell(x, y);
+        for (CellStateListener listener : listeners) {
+            listener.stateChanged(cell, oldState, state);
+        }
+    }
+
+    /**
+     * @return the number of mines around an open cell, -1 if the open cell is
+     * a mine, or 0 if the cell is not open.
+     */
+    public int getNumber(int x, int y) {
+        int id = id(x, y);
+        return open.get(id) ? number(id) : 0;
+    }
+
+    private int number(int id) {
+        int number = (int) (numbers[id / NUMBERS_PER_WORD] >>> (id % NUMBERS_PER_WORD * NUMBER_BITS) & NUMBER_MASK);
+        return number == NUMBER_MASK ? -1 : number;
+    }
+
+    private void setNumber(int id, int number) {
+        int shift = id % NUMBERS_PER_WORD * NUMBER_BITS;
+        numbers[id / NUMBERS_PER_WORD] = numbers[id / NUMBERS_PER_WORD] & ~(NUMBER_MASK << shift)
+                | (number & NUMBER_MASK) << shift;
+    }
+
+    /**
+     * @return the number of open cells on the board.
+     */
+    public int getOpenCount() {
+        return open.cardinality();
+    }
+
     public Cell getCell(int x, int y) {
-        return this.cells[x][y];
+        Cell[][] cells = this.cells;
+        return cells != null ? cells[x][y] : new Cell(this, x, y);
     }
 
     public List<Cell> getNeighbours(int x, int y) {
@@ -33,7 +193,7 @@ public class Board {
         for (int i = x - 1; i <= x + 1; i++) {
             for (int j = y - 1; j <= y + 1; j++) {
                 if (i >= 0 && i < width && j >= 0 && j < height && !(i == x && j == y)) {
-                    neighbours.add(cells[i][j]);
+                    neighbours.add(getCell(i, j));
                 }
             }
         }
@@ -41,22 +201,89 @@ public class Board {
     }
 
     public Cell[][] getCells() {
-        return this.cells;
+        Cell[][] cells = this.cells;
+        if (cells == null) {
+            synchronized (this) {
+                cells = this.cells;
+                if (cells == null) {
+                    cells = createCells();
+                    this.cells = cells;
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Unveil a cell and, if it has no neighbouring mines, every cell of the
+     * opening around it. The opening is flood filled with a queue of cell ids
+     * rather than by recursion, so any size of opening can be made, and
+     * listeners are told about all of the cells opened as one batch.
+     *
+     * @return ids of the cells opened, as in {@link NeighbourIndex}, starting
+     * with the given cell; empty if it was already open.
+     */
+    public synchronized int[] unveilOpening(int x, int y) {
+        int origin = id(x, y);
+        if (open.get(origin)) {
+            return new int[0];
+        }
+        // Listeners are only given closed cells in a batch
+        boolean wasFlagged = flagged.get(origin);
+        if (wasFlagged) {
+            setState(x, y, CellState.OPEN);
+        } else {
+            setNumber(origin, field.uncover(x, y));
+            open.set(origin);
+        }
+
+        int[] queue = openingQueue;
+        queue[0] = origin;
+        int tail = 1;
+        // The queue holds every cell opened so far; the neighbours of the
+        // cells before the head have been opened if they had no mines around
+        for (int head = 0; head < tail; head++) {
+            int id = queue[head];
+            if (number(id) != 0) {
+                continue;
+            }
+            int cx = id / height;
+            int cy = id % height;
+            for (int i = Math.max(cx - 1, 0); i <= Math.min(cx + 1, width - 1); i++) {
+                for (int j = Math.max(cy - 1, 0); j <= Math.min(cy + 1, height - 1); j++) {
+                    int neighbour = id(i, j);
+                    if (open.get(neighbour) || flagged.get(neighbour)) {
+                        continue;
+                    }
+                    setNumber(neighbour, field.uncover(i, j));
+                    open.set(neighbour);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, Math.min(queue.length * 2, width * height));
+                    }
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        openingQueue = queue;
+
+        int[] opened = Arrays.copyOf(queue, tail);
+        int[] batch = wasFlagged ? Arrays.copyOfRange(opened, 1, tail) : opened;
+        for (CellStateListener listener : listeners) {
+            listener.cellsOpened(this, batch);
+        }
+        return opened;
     }
 
     public Cell unveil(int x, int y) {
-        int num = field.uncover(x, y);
-        Cell cell = getCell(x, y);
-        cell.setNumber(num);
-        cell.setState(CellState.OPEN);
-        return cell;
+        setState(x, y, CellState.OPEN);
+        return getCell(x, y);
     }
 
     private Cell[][] createCells() {
         Cell[][] cells = new Cell[width][height];
         for (int i = 0; i < this.width; i++) {
             for (int j = 0; j < this.height; j++) {
-                cells[i][j] = new Cell(i, j);
+                cells[i][j] = new Cell(this, i, j);
             }
         }
         return cells;
@@ -66,12 +293,7 @@ public class Board {
         this.field.open(PASSWORD);
         for (int i = 0; i < this.width; i++) {
             for (int j = 0; j < this.height; j++) {
-                Cell cell = this.cells[i][j];
-                if (cell.getState() != CellState.OPEN) {
-                    int num = this.field.uncover(i, j);
-                    cell.setNumber(num);
-                    cell.setState(CellState.OPEN);
-                }
+                setState(i, j, CellState.OPEN);
             }
         }
     }
@@ -1,26 +1,29 @@
 package main.java;
 
+/**
+ * A view of one cell of a {@link Board}; the cell's state and number are kept
+ * by the board.
+ */
 public class Cell {
+    // Board the cell belongs to
+    final Board board;
+
     // ID of cell (cell coordinates)
     private final int x;
     private final int y;
 
-    // Surrounding mines
-    private int number;
-
-    private CellState state;
-    public Cell(int x, int y) {
+    Cell(Board board, int x, int y) {
+        this.board = board;
         this.x = x;
         this.y = y;
-        this.state = CellState.CLOSED;
     }
 
     public CellState getState() {
-        return state;
+        return board.getState(x, y);
     }
 
     public void setState(CellState state) {
-        this.state = state;
+        board.setState(x, y, state);
     }
 
     public int getX() {
@@ -31,19 +34,18 @@ public class Cell {
         return y;
     }
 
+    /**
+     * @return the number of mines around the cell once it is open.
+     */
     public int getNumber() {
-        return number;
-    }
-
-    public void setNumber(int i) {
-        number = i;
+        return board.getNumber(x, y);
     }
 
     /**
      * @return if number is -1 the cell is a mine
      */
     public boolean isMine() {
-        return (number == -1);
+        return (getNumber() == -1);
     }
 
     @Override
@@ -56,11 +58,13 @@ public class Cell {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
+        // A cell is a view of a place on a board, so its state is not part of
+        // its identity: it can change while the cell is a key in a map
         Cell cell = (Cell) o;
 
         if (x != cell.x) return false;
         if (y != cell.y) return false;
-        return state == cell.state;
+        return board == cell.board;
     }
 
     @Override
@@ -0,0 +1,24 @@
+package main.java;
+
+/**
+ * Listener notified whenever a cell of a {@link Board} changes state, e.g.
+ * when it is opened or flagged.
+ */
+public interface CellStateListener {
+    void stateChanged(Cell cell, CellState oldState, CellState newState);
+
+    /**
+     * Called once for a batch of closed cells opened together, such as the
+     * cells of an opening, instead of once per cell.
+     *
+     * @param cells ids of the opened cells as in {@link NeighbourIndex}; must
+     *              not be modified.
+     */
+    default void cellsOpened(Board board, int[] cells) {
+        for (int id : cells) {
+            int x = id / board.getHeight();
+            int y = id % board.getHeight();
+            stateChanged(board.getCell(x, y), CellState.CLOSED, CellState.OPEN);
+        }
+    }
+}
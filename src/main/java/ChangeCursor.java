@@ -0,0 +1,37 @@
+package main.java;
+
+import java.util.List;
+
+/**
+ * Pull-based reader of a game's {@link ChangeSet}s, for consumers that would
+ * rather catch up on what changed when they next need to than be notified as
+ * it happens. Each cursor keeps its own position, starting after the changes
+ * that had already been made when it was created.
+ */
+public class ChangeCursor {
+
+    private final List<ChangeSet> history;
+    private int position;
+
+    ChangeCursor(List<ChangeSet> history) {
+        this.history = history;
+        synchronized (history) {
+            this.position = history.size();
+        }
+    }
+
+    public boolean hasNext() {
+        synchronized (history) {
+            return position < history.size();
+        }
+    }
+
+    /**
+     * @return the next change set, or null if every change has been read.
+     */
+    public ChangeSet next() {
+        synchronized (history) {
+            return position < history.size() ? history.get(position++) : null;
+        }
+    }
+}
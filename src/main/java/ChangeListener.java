@@ -0,0 +1,9 @@
+package main.java;
+
+/**
+ * Listener notified with the {@link ChangeSet} of every action taken on a
+ * {@link MineSweeper} game.
+ */
+public interface ChangeListener {
+    void changed(ChangeSet changes);
+}
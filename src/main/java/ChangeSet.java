@@ -0,0 +1,86 @@
+package main.java;
+
+/**
+ * Everything one action on a {@link MineSweeper} game changed: the cells it
+ * opened along with their numbers, the cells it flagged or unflagged, and the
+ * state of the game before and after.
+ * <p>
+ * Cells are identified as in {@link NeighbourIndex}. The cells revealed when
+ * a game ends are not listed; once the game is won or lost every cell is
+ * open, and an opened cell is never flagged. The arrays returned must not be
+ * modified.
+ */
+public class ChangeSet {
+
+    private static final int[] NO_CELLS = new int[0];
+    private static final byte[] NO_NUMBERS = new byte[0];
+
+    private final long sequence;
+    private final int[] opened;
+    private final byte[] numbers;
+    private final int[] flagged;
+    private final int[] unflagged;
+    private final GameState oldState;
+    private final GameState newState;
+
+    private ChangeSet(long sequence, int[] opened, byte[] numbers, int[] flagged, int[] unflagged,
+                      GameState oldState, GameState newState) {
+        this.sequence = sequence;
+        this.opened = opened;
+        this.numbers = numbers;
+        this.flagged = flagged;
+        this.unflagged = unflagged;
+        this.oldState = oldState;
+        this.newState = newState;
+    }
+
+    static ChangeSet opened(long sequence, int[] opened, byte[] numbers, GameState oldState, GameState newState) {
+        return new ChangeSet(sequence, opened, numbers, NO_CELLS, NO_CELLS, oldState, newState);
+    }
+
+    static ChangeSet flagged(long sequence, int cell, boolean flagged, GameState state) {
+        int[] cells = {cell};
+        return new ChangeSet(sequence, NO_CELLS, NO_NUMBERS, flagged ? cells : NO_CELLS,
+                flagged ? NO_CELLS : cells, state, state);
+    }
+
+    /**
+     * @return the position of this change set in its game's history,
+     * starting from 0.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int[] getOpened() {
+        return opened;
+    }
+
+    /**
+     * @return the number of each opened cell, in the same order as
+     * {@link #getOpened()}; -1 for a mine.
+     */
+    public byte[] getNumbers() {
+        return numbers;
+    }
+
+    public int[] getFlagged() {
+        return flagged;
+    }
+
+    public int[] getUnflagged() {
+        return unflagged;
+    }
+
+    public GameState getOldState() {
+        return oldState;
+    }
+
+    public GameState getNewState() {
+        return newState;
+    }
+
+    public boolean isStateChange() {
+        return oldState != newState;
+    }
+}
@@ -0,0 +1,153 @@
+package main.java;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Keeps a board's cells classified as land, sea and shore cells. The tracker
+ * listens to the board's cell state changes and only reclassifies the changed
+ * cell and its neighbours, so queries never need to rescan the board.
+ * <p>
+ * Cells are identified as in {@link NeighbourIndex} and every list returned
+ * is ordered by cell id.
+ */
+public class FrontierTracker implements CellStateListener {
+
+    private final Board board;
+    private final NeighbourIndex neighbourIndex;
+    // At most 8 each
+    private final byte[] openNeighbours;
+    private final byte[] flaggedNeighbours;
+    // Open cells
+    private final BitSet land;
+    // Closed cells that do not touch an open cell
+    private final BitSet sea;
+    // Closed cells that touch an open cell
+    private final BitSet closedShore;
+    // Open cells that touch a closed cell
+    private final BitSet openShore;
+
+    FrontierTracker(Board board, int width, int height) {
+        this.board = board;
+        this.neighbourIndex = NeighbourIndex.of(width, height);
+        int size = neighbourIndex.size();
+        this.openNeighbours = new byte[size];
+        this.flaggedNeighbours = new byte[size];
+        this.land = new BitSet(size);
+        this.sea = new BitSet(size);
+        this.closedShore = new BitSet(size);
+        this.openShore = new BitSet(size);
+        for (int id = 0; id < size; id++) {
+            CellState state = board.getState(neighbourIndex.x(id), neighbourIndex.y(id));
+            if (state == CellState.OPEN) {
+                land.set(id);
+            }
+            for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+                int neighbour = neighbourIndex.neighbour(i);
+                if (state == CellState.OPEN) {
+                    openNeighbours[neighbour]++;
+                } else if (state == CellState.FLAGGED) {
+                    flaggedNeighbours[neighbour]++;
+                }
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            classify(id);
+        }
+    }
+
+    /**
+     * @return the tracker of the board the cells belong to.
+     */
+    public static FrontierTracker of(Cell[][] cells) {
+        return cells[0][0].board.getFrontierTracker();
+    }
+
+    @Override
+    public synchronized void stateChanged(Cell cell, CellState oldState, CellState newState) {
+        int id = neighbourIndex.id(cell.getX(), cell.getY());
+        int openChange = (newState == CellState.OPEN ? 1 : 0) - (oldState == CellState.OPEN ? 1 : 0);
+        int flagChange = (newState == CellState.FLAGGED ? 1 : 0) - (oldState == CellState.FLAGGED ? 1 : 0);
+        land.set(id, newState == CellState.OPEN);
+        for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+            int neighbour = neighbourIndex.neighbour(i);
+            openNeighbours[neighbour] += openChange;
+            flaggedNeighbours[neighbour] += flagChange;
+            if (openChange != 0) {
+                classify(neighbour);
+            }
+        }
+        classify(id);
+    }
+
+    @Override
+    public synchronized void cellsOpened(Board board, int[] cells) {
+        for (int id : cells) {
+            land.set(id);
+            for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+                openNeighbours[neighbourIndex.neighbour(i)]++;
+            }
+        }
+        // Only cells next to an opened cell can change class
+        for (int id : cells) {
+            classify(id);
+            for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+                classify(neighbourIndex.neighbour(i));
+            }
+        }
+    }
+
+    private void classify(int id) {
+        boolean open = land.get(id);
+        int closedNeighbours = neighbourIndex.end(id) - neighbourIndex.start(id) - openNeighbours[id];
+        sea.set(id, !open && openNeighbours[id] == 0);
+        closedShore.set(id, !open && openNeighbours[id] != 0);
+        openShore.set(id, open && closedNeighbours != 0);
+    }
+
+    private Cell cellAt(int id) {
+        return board.getCell(neighbourIndex.x(id), neighbourIndex.y(id));
+    }
+
+    private List<Cell> toCells(BitSet ids) {
+        List<Cell> result = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            result.add(cellAt(id));
+        }
+        return result;
+    }
+
+    public synchronized List<Cell> getLandCells() {
+        return toCells(land);
+    }
+
+    public synchronized List<Cell> getSeaCells() {
+        return toCells(sea);
+    }
+
+    public synchronized List<Cell> getClosedShoreCells() {
+        return toCells(closedShore);
+    }
+
+    public synchronized List<Cell> getOpenShoreCells() {
+        return toCells(openShore);
+    }
+
+    public synchronized int getSeaSize() {
+        return sea.cardinality();
+    }
+
+    public synchronized int getOpenNeighbours(int x, int y) {
+        return openNeighbours[neighbourIndex.id(x, y)];
+    }
+
+    public synchronized int getClosedNeighbours(int x, int y) {
+        int id = neighbourIndex.id(x, y);
+        return neighbourIndex.end(id) - neighbourIndex.start(id) - openNeighbours[id];
+    }
+
+    public synchronized int getFlaggedNeighbours(int x, int y) {
+        return flaggedNeighbours[neighbourIndex.id(x, y)];
+    }
+}
@@ -0,0 +1,273 @@
+package main.java;
+
+import java.util.Arrays;
+
+/**
+ * A game of minesweeper held entirely in primitive arrays, for playing many
+ * games quickly without any {@link Cell}s, listeners or Swing, e.g. in
+ * simulations. Games played through a {@link MineSweeper} keep their state in
+ * a {@link Board} instead, which is smaller.
+ * <p>
+ * Cells are identified as in {@link NeighbourIndex}. Each cell's state is one
+ * byte: an open cell holds its number (-1 for a mine), a closed cell holds
+ * {@link #CLOSED} and a flagged cell {@link #FLAGGED}, which is also the form
+ * of the solvers' snapshots. A cell's number is only known once it has been
+ * uncovered from the mine field, when the cell is opened, so reading a state
+ * costs one array access and a copy costs one array of states.
+ * <p>
+ * This trades memory for speed: an engine takes a byte a cell (a million cell
+ * board takes about 1 MB), and each copy one more, where a board takes under
+ * a byte. The mines are packed and shared by every copy. Each copy uncovers
+ * cells from its own copy of the mine field, so opening a mine in one copy
+ * does not stop the others from being played.
+ * <p>
+ * An engine is not thread safe. A game played headless can be carried on in
+ * the GUI or by the solvers through {@link MineSweeper#MineSweeper(GameEngine)}.
+ */
+public final class GameEngine {
+
+    public static final byte MINE = -1;
+    public static final byte CLOSED = 9;
+    public static final byte FLAGGED = 10;
+
+    private final int width;
+    private final int height;
+    private final int mines;
+    // The field as given, never uncovered, and the copy this engine uncovers
+    // its cells from
+    private final MineField origin;
+    private MineField field;
+    private final NeighbourIndex neighbourIndex;
+    private final byte[] states;
+    private int openCount;
+    private int flagCount;
+    private GameState gameState;
+    // Cells opened by the last move, reused between moves and grown as needed
+    private int[] opened;
+    private int openedCount;
+
+    public GameEngine(Difficulty diff, long seed) {
+        this(diff.width, diff.height, diff.mines, seed);
+    }
+
+    /**
+     * Create a game whose mines are placed using the given seed, with the
+     * same mines as a {@link MineSweeper} created with the same seed.
+     */
+    public GameEngine(int width, int height, int mines, long seed) {
+        this(width, height, mines, new MineField(height, width, mines, seed));
+    }
+
+    /**
+     * @param field mine field of the given dimensions, containing the given
+     *              number of mines.
+     */
+    public GameEngine(int width, int height, int mines, MineField field) {
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+        this.origin = field;
+        this.field = field.copy();
+        this.neighbourIndex = NeighbourIndex.of(width, height);
+        this.states = new byte[width * height];
+        Arrays.fill(states, CLOSED);
+        this.gameState = GameState.RUNNING;
+        this.opened = new int[64];
+    }
+
+    private GameEngine(GameEngine other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.mines = other.mines;
+        this.origin = other.origin;
+        this.field = other.origin.copy();
+        this.neighbourIndex = other.neighbourIndex;
+        this.states = other.states.clone();
+        this.openCount = other.openCount;
+        this.flagCount = other.flagCount;
+        this.gameState = other.gameState;
+        this.opened = new int[64];
+    }
+
+    /**
+     * @return an independent copy of the game, e.g. to try moves on.
+     */
+    public GameEngine copy() {
+        return new GameEngine(this);
+    }
+
+    /**
+     * @return an immutable view of the game as it is now.
+     */
+    public GameView view() {
+        return new GameView(width, height, mines, states.clone(), gameState, openCount, flagCount);
+    }
+
+    /**
+     * Copy the state of every cell into an array indexed by cell id, as
+     * {@link #view()} does but without taking a whole view.
+     *
+     * @param target array of at least width * height states.
+     */
+    public void copyStatesInto(byte[] target) {
+        System.arraycopy(states, 0, target, 0, states.length);
+    }
+
+    /**
+     * Put the game back in the state of an earlier view of it, or of any
+     * game with the same mine field.
+     */
+    public void restore(GameView view) {
+        if (view.getWidth() != width || view.getHeight() != height) {
+            throw new IllegalArgumentException("view is of a board of another size");
+        }
+        if (gameState == GameState.LOST) {
+            // The field cannot be uncovered once a mine has been
+            field = origin.copy();
+        }
+        view.copyStatesTo(states);
+        openCount = view.getOpenCount();
+        flagCount = view.getFlagCount();
+        gameState = view.getGameState();
+        openedCount = 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * @return the mine field as given, with nothing uncovered.
+     */
+    MineField getField() {
+        return origin;
+    }
+
+    public NeighbourIndex getNeighbourIndex() {
+        return neighbourIndex;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * @return the number of cells opened by moves, not counting those shown
+     * once the game was over.
+     */
+    public int getOpenCount() {
+        return openCount;
+    }
+
+    public int getFlagCount() {
+        return flagCount;
+    }
+
+    /**
+     * @return the state of the cell with the given id, as described above.
+     */
+    public byte getState(int id) {
+        return states[id];
+    }
+
+    public boolean isOpen(int id) {
+        return states[id] < CLOSED;
+    }
+
+    /**
+     * @return the number of mines around an open cell, -1 if the open cell is
+     * a mine, or 0 if the cell is not open.
+     */
+    public int getNumber(int id) {
+        return states[id] < CLOSED ? states[id] : 0;
+    }
+
+    /**
+     * Open a cell and, if it has no neighbouring mines, every cell of the
+     * opening around it, ending the game if a mine is opened or every other
+     * cell is open. Flagged cells are only opened if asked for directly.
+     *
+     * @return the number of cells opened, which can be read back with
+     * {@link #getOpened(int)} until the next move. 0 if the cell was already
+     * open or the game is over.
+     */
+    public int open(int id) {
+        openedCount = 0;
+        if (gameState != GameState.RUNNING || states[id] < CLOSED) {
+            return 0;
+        }
+        if (states[id] == FLAGGED) {
+            flagCount--;
+        }
+        reveal(id);
+        // The opened cells so far are the queue; the neighbours of the cells
+        // before the head have been opened if they had no mines around
+        for (int head = 0; head < openedCount; head++) {
+            int cell = opened[head];
+            if (states[cell] != 0) {
+                continue;
+            }
+            for (int i = neighbourIndex.start(cell); i < neighbourIndex.end(cell); i++) {
+                int neighbour = neighbourIndex.neighbour(i);
+                if (states[neighbour] == CLOSED) {
+                    reveal(neighbour);
+                }
+            }
+        }
+
+        if (states[id] == MINE) {
+            gameState = GameState.LOST;
+        } else if (openCount == width * height - mines) {
+            gameState = GameState.WON;
+        }
+        return openedCount;
+    }
+
+    public int open(int x, int y) {
+        return open(neighbourIndex.id(x, y));
+    }
+
+    /**
+     * @param i index of the cell among those opened by the last move, the
+     *          cell asked for first.
+     * @return the id of the cell.
+     */
+    public int getOpened(int i) {
+        if (i >= openedCount) {
+            throw new IndexOutOfBoundsException("only " + openedCount + " cells were opened");
+        }
+        return opened[i];
+    }
+
+    /**
+     * Flag or unflag a closed cell.
+     *
+     * @return if the cell's flag changed.
+     */
+    public boolean setFlagged(int id, boolean flagged) {
+        byte state = flagged ? FLAGGED : CLOSED;
+        if (states[id] < CLOSED || states[id] == state) {
+            return false;
+        }
+        states[id] = state;
+        flagCount += flagged ? 1 : -1;
+        return true;
+    }
+
+    private void reveal(int id) {
+        states[id] = (byte) field.uncover(neighbourIndex.x(id), neighbourIndex.y(id));
+        openCount++;
+        if (openedCount == opened.length) {
+            opened = Arrays.copyOf(opened, Math.min(opened.length * 2, width * height));
+        }
+        opened[openedCount++] = id;
+    }
+}
@@ -0,0 +1,102 @@
+package main.java;
+
+/**
+ * An immutable view of a game at one moment, taken by
+ * {@link GameEngine#view()}. Cell states are as described in
+ * {@link GameEngine} and cells are identified as in {@link NeighbourIndex}.
+ * <p>
+ * A view shows only what a player can see, so solvers can be given one
+ * without being able to learn where the mines are, and it never changes
+ * under them while they work.
+ */
+public final class GameView {
+
+    private final int width;
+    private final int height;
+    private final int mines;
+    private final byte[] states;
+    private final GameState gameState;
+    private final int openCount;
+    private final int flagCount;
+
+    GameView(int width, int height, int mines, byte[] states, GameState gameState, int openCount, int flagCount) {
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+        this.states = states;
+        this.gameState = gameState;
+        this.openCount = openCount;
+        this.flagCount = flagCount;
+    }
+
+    /**
+     * Copy the state of every cell of the board the cells belong to into an
+     * array indexed by cell id, in the form of a view's states.
+     */
+    public static void copyStates(Cell[][] cells, byte[] target) {
+        cells[0][0].board.copyStatesInto(target);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public NeighbourIndex getNeighbourIndex() {
+        return NeighbourIndex.of(width, height);
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public int getOpenCount() {
+        return openCount;
+    }
+
+    public int getFlagCount() {
+        return flagCount;
+    }
+
+    public byte getState(int id) {
+        return states[id];
+    }
+
+    public byte getState(int x, int y) {
+        return states[x * height + y];
+    }
+
+    public boolean isOpen(int id) {
+        return states[id] < GameEngine.CLOSED;
+    }
+
+    public boolean isFlagged(int id) {
+        return states[id] == GameEngine.FLAGGED;
+    }
+
+    /**
+     * @return the number of mines around an open cell, -1 if the open cell is
+     * a mine, or 0 if the cell is not open.
+     */
+    public int getNumber(int id) {
+        return states[id] < GameEngine.CLOSED ? states[id] : 0;
+    }
+
+    /**
+     * @return a copy of the state of every cell, indexed by cell id.
+     */
+    public byte[] copyStates() {
+        return states.clone();
+    }
+
+    void copyStatesTo(byte[] target) {
+        System.arraycopy(states, 0, target, 0, states.length);
+    }
+}
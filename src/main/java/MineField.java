@@ -2,6 +2,8 @@ package main.java;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Random;
 
 /**
@@ -17,22 +19,64 @@ import java.util.Random;
  * @since 2014-08-17
  */
 public class MineField {
-    private final boolean[][] field;
+    // one bit per square, bit (w*height + h) is set if there is a mine at (h,w);
+    // packed into longs so that even very large fields stay small
+    private final long[] mines;
+    private final int height;
+    private final int width;
     private boolean exploded = false;
     private boolean opened = false;
 
-    // 0<height<100 is the height of the mine field
-    // 0<width<100 is the width of the mine field
+    // 0<height is the height of the mine field
+    // 0<width is the width of the mine field
+    // 0<height*width<=Integer.MAX_VALUE
     // 0<=number_of_mines<=height*width is the number of mines
     // Constructs the mine field with the given dimensions and
     // plants the given number of mines
     public MineField(int height, int width, int number_of_mines) {
+        this(height, width, plantMines(height, width, number_of_mines, new Random()));
+    }
+
+    // as above, but the mines are planted by a random number generator
+    // with the given seed, so the same seed always gives the same field
+    public MineField(int height, int width, int number_of_mines, long seed) {
+        this(height, width, plantMines(height, width, number_of_mines, new Random(seed)));
+    }
+
+    // constructs the mine field with mines in exactly the given squares;
+    // bit (w*height + h) of mines is set if there is a mine at (h,w)
+    public MineField(int height, int width, BitSet mines) {
+        assert height > 0;
+        assert width > 0;
+
+        this.height = height;
+        this.width = width;
+        // words past the last mine are dropped by toLongArray, so pad them back
+        int words = (height * width + Long.SIZE - 1) / Long.SIZE;
+        this.mines = Arrays.copyOf(mines.get(0, height * width).toLongArray(), words);
+    }
+
+    private MineField(MineField other) {
+        this.height = other.height;
+        this.width = other.width;
+        this.mines = other.mines;
+    }
+
+    // returns a field with the same mines in which nothing has been uncovered,
+    // as if it had been constructed again with the same seed; the mines are
+    // shared, as they never change
+    public MineField copy() {
+        return new MineField(this);
+    }
+
+    // plants the given number of mines in a field of the given dimensions
+    // using gen, returning the mines in the form taken by the constructor
+    public static BitSet plantMines(int height, int width, int number_of_mines, Random gen) {
         assert height > 0;
         assert width > 0;
         assert number_of_mines >= 0 && number_of_mines <= height * width;
 
-        // field's entries are initialised to false by default
-        field = new boolean[width][height];
+        BitSet mines = new BitSet(height * width);
         // plant mines as follows:
         // iterate through the squares of the minefield,
         // and plant a mine in a particular square with the
@@ -40,22 +84,57 @@ public class MineField {
         // and n is the number of squares still to be considered
         // (including the current one);
         // the resulting distribution is close to uniform
-        Random gen = new Random(); // random number generator
         int remaining_positions = height * width; // number of positions that have not been considered yet
         for (int i = 0; i < width; ++i) {
             for (int j = 0; j < height; ++j) {
                 if (gen.nextInt(remaining_positions) < number_of_mines) {
-                    field[i][j] = true;
+                    mines.set(i * height + j);
                     --number_of_mines;
                 }
                 --remaining_positions;
             }
         }
+        return mines;
     }
 
     // checks if (i,j) is within the field
     private boolean is_good(int i, int j) {
-        return i >= 0 && i < field.length && j >= 0 && j < field[i].length;
+        return i >= 0 && i < width && j >= 0 && j < height;
+    }
+
+    private boolean is_mine(int w, int h) {
+        int bit = w * height + h;
+        return (mines[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // counts the mines in squares from (inclusive) to to (exclusive),
+    // a word at a time
+    private int count_mines(int from, int to) {
+        int counter = 0;
+        while (from < to) {
+            int offset = from & (Long.SIZE - 1);
+            int bits = Math.min(to - from, Long.SIZE - offset);
+            long mask = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+            counter += Long.bitCount((mines[from >>> 6] >>> offset) & mask);
+            from += bits;
+        }
+        return counter;
+    }
+
+    // as uncover, but without changing the state of the field;
+    // each column of the 3x3 neighbourhood is a run of consecutive bits
+    private int number(int w, int h) {
+        assert is_good(w, h);
+        if (is_mine(w, h)) {
+            return -1;
+        }
+        int top = Math.max(h - 1, 0);
+        int bottom = Math.min(h + 1, height - 1) + 1;
+        int counter = 0;
+        for (int i = Math.max(w - 1, 0); i <= Math.min(w + 1, width - 1); ++i) {
+            counter += count_mines(i * height + top, i * height + bottom);
+        }
+        return counter;
     }
 
     // 0<=h<height and 0<=w<width are the coordinates;
@@ -72,21 +151,11 @@ public class MineField {
                 ;
         }
 
-        // check if exploded this time
-        if (field[w][h]) {
+        // check if exploded this time, otherwise count the number of mines
+        // around this cell
+        int counter = number(w, h);
+        if (counter == -1) {
             exploded = true;
-            return -1;
-        }
-
-        // count the number of mines around this cell;
-        // note that field[w][h] is false, so we can count it
-        assert !field[w][h];
-        int counter = 0;
-        for (int i = w - 1; i <= w + 1; ++i) {
-            for (int j = h - 1; j <= h + 1; ++j) {
-                if (is_good(i, j) && field[i][j])
-                    ++counter;
-            }
         }
         return counter;
     }
@@ -1,7 +1,10 @@
 package main.java;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongFunction;
 
 public class MineSweeper {
 
@@ -11,6 +14,13 @@ public class MineSweeper {
     private final int height;
     private final int mines;
     private final Board board;
+    private final List<ChangeListener> listeners;
+    // Guarded by itself, shared with every cursor. Changes are only kept once
+    // a cursor has been created, as a cursor only reads the changes made
+    // after it, so games without cursors (e.g. simulated games) keep none
+    private final List<ChangeSet> history;
+    private boolean recording;
+    private long sequence;
     private int openCells;
     private GameState gameState;
 
@@ -19,12 +29,84 @@ public class MineSweeper {
     }
 
     public MineSweeper(int width, int height, int mines) {
+        this(new Board(width, height, mines), width, height, mines);
+    }
+
+    /**
+     * Create a game whose mines are placed using the given seed. Games created
+     * with the same dimensions and seed always have the same mines.
+     */
+    public MineSweeper(Difficulty diff, long seed) {
+        this(diff.width, diff.height, diff.mines, seed);
+    }
+
+    public MineSweeper(int width, int height, int mines, long seed) {
+        this(new Board(width, height, mines, seed), width, height, mines);
+    }
+
+    public MineSweeper(int width, int height, int mines, MineField field) {
+        this(new Board(width, height, mines, field), width, height, mines);
+    }
+
+    /**
+     * Carry on a headless game, e.g. to show it in the GUI or hand it to the
+     * solvers. The game starts from the engine's state on a board of its own,
+     * so moves made on the game afterwards are not seen by the engine, nor
+     * moves made on the engine by the game.
+     */
+    public MineSweeper(GameEngine engine) {
+        this(new Board(engine), engine.getWidth(), engine.getHeight(), engine.getMines());
+        this.gameState = engine.getGameState();
+        this.openCells = engine.getOpenCount();
+    }
+
+    private MineSweeper(Board board, int width, int height, int mines) {
         this.gameState = GameState.RUNNING;
         this.width = width;
         this.height = height;
         this.mines = mines;
-        this.openCells = 0;
-        this.board = new Board(width, height, mines);
+        this.board = board;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.history = new ArrayList<>();
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Create a cursor over the change sets of actions taken from now on. The
+     * game keeps every change set from when the first cursor is created, for
+     * as long as the game is kept, so games that are played for a long time
+     * should only be given cursors that are needed.
+     */
+    public ChangeCursor newChangeCursor() {
+        synchronized (history) {
+            recording = true;
+            return new ChangeCursor(history);
+        }
+    }
+
+    /**
+     * Record a change set and notify the listeners of it.
+     *
+     * @param factory creates the change set from its sequence number.
+     */
+    private void publish(LongFunction<ChangeSet> factory) {
+        ChangeSet changes;
+        synchronized (history) {
+            changes = factory.apply(sequence++);
+            if (recording) {
+                history.add(changes);
+            }
+        }
+        for (ChangeListener listener : listeners) {
+            listener.changed(changes);
+        }
     }
 
     public Cell[][] getCells() {
@@ -43,43 +125,68 @@ public class MineSweeper {
         return mines;
     }
 
+    /**
+     * @return the number of cells opened by moves, not counting those shown
+     * once the game was over.
+     */
     public int getOpenCells() {
         return openCells;
     }
 
-    public void openCell(int x, int y) {
-        if (this.gameState == GameState.RUNNING) {
-            this.openCells += 1;
-            Cell cell = board.unveil(x, y);
-            switch (cell.getNumber()) {
-                case -1 -> {
-                    this.gameState = GameState.LOST;
-                    endGame();
-                }
-                case 0 -> openNeighbours(x, y);
-                default -> {
-                    if (this.openCells == (this.width * this.height) - this.mines) {
-                        this.gameState = GameState.WON;
-                        endGame();
-                    }
-                }
+    /**
+     * Open a cell and, if it has no neighbouring mines, the opening around it.
+     * Once the game is over the cell is only shown, which is not a move, so
+     * nothing is published and no cells are returned.
+     *
+     * @return ids of the cells opened, as in {@link NeighbourIndex}.
+     */
+    public int[] openCell(int x, int y) {
+        GameState oldState = this.gameState;
+        if (oldState == GameState.RUNNING) {
+            int[] opened = board.unveilOpening(x, y);
+            byte[] numbers = new byte[opened.length];
+            for (int i = 0; i < opened.length; i++) {
+                numbers[i] = (byte) board.getNumber(opened[i] / height, opened[i] % height);
+            }
+            this.openCells += opened.length;
+            if (board.getNumber(x, y) == -1) {
+                this.gameState = GameState.LOST;
+                endGame();
+            } else if (this.openCells == (this.width * this.height) - this.mines) {
+                this.gameState = GameState.WON;
+                endGame();
+            }
+            GameState newState = this.gameState;
+            if (opened.length > 0) {
+                publish(sequence -> ChangeSet.opened(sequence, opened, numbers, oldState, newState));
             }
+            return opened;
         } else {
             board.unveil(x, y);
+            return new int[0];
         }
     }
 
-    public GameState getState() {
-        return this.gameState;
+    /**
+     * Flag or unflag a closed cell. Flags set directly on a {@link Cell} are
+     * not published as changes, so players should flag through the game.
+     *
+     * @return if the cell's flag changed.
+     */
+    public boolean setFlagged(int x, int y, boolean flagged) {
+        CellState oldState = board.getState(x, y);
+        CellState newState = flagged ? CellState.FLAGGED : CellState.CLOSED;
+        if (oldState == CellState.OPEN || oldState == newState) {
+            return false;
+        }
+        board.setState(x, y, newState);
+        GameState state = this.gameState;
+        publish(sequence -> ChangeSet.flagged(sequence, x * height + y, flagged, state));
+        return true;
     }
 
-    private void openNeighbours(int x, int y) {
-        List<Cell> neighbours = board.getNeighbours(x, y);
-        for (Cell c : neighbours) {
-            if (c.getState() == CellState.CLOSED) {
-                openCell(c.getX(), c.getY());
-            }
-        }
+    public GameState getState() {
+        return this.gameState;
     }
 
     public Cell getCell(int x, int y) {
@@ -0,0 +1,116 @@
+package main.java;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable neighbour lookup for a board of a given size. Cells are identified
+ * by {@code x * height + y} and the neighbours of every cell are stored in one
+ * flat array, so walking a cell's neighbours needs no allocation.
+ * <p>
+ * Indices are shared: the indices of the last few board sizes used are kept,
+ * least recently used first out, so boards of the same size share one
+ * instance without every size ever seen staying in memory.
+ */
+public final class NeighbourIndex {
+
+    private static final int CAPACITY = 8;
+    // Guarded by itself
+    private static final Map<Long, NeighbourIndex> INDICES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, NeighbourIndex> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private final int width;
+    private final int height;
+    // Neighbours of cell id are neighbours[offsets[id]] to neighbours[offsets[id + 1] - 1]
+    private final int[] offsets;
+    private final int[] neighbours;
+
+    private NeighbourIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.offsets = new int[width * height + 1];
+        int[] table = new int[width * height * 8];
+        int size = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                offsets[x * height + y] = size;
+                for (int i = x - 1; i <= x + 1; i++) {
+                    for (int j = y - 1; j <= y + 1; j++) {
+                        if (i >= 0 && i < width && j >= 0 && j < height && !(i == x && j == y)) {
+                            table[size++] = i * height + j;
+                        }
+                    }
+                }
+            }
+        }
+        offsets[width * height] = size;
+        this.neighbours = new int[size];
+        System.arraycopy(table, 0, neighbours, 0, size);
+    }
+
+    public static NeighbourIndex of(int width, int height) {
+        long key = ((long) width << 32) | height;
+        NeighbourIndex index;
+        synchronized (INDICES) {
+            index = INDICES.get(key);
+        }
+        if (index == null) {
+            // Built without the lock, and a race only builds an equal index twice
+            index = new NeighbourIndex(width, height);
+            synchronized (INDICES) {
+                INDICES.putIfAbsent(key, index);
+            }
+        }
+        return index;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int size() {
+        return width * height;
+    }
+
+    public int id(int x, int y) {
+        return x * height + y;
+    }
+
+    public int x(int id) {
+        return id / height;
+    }
+
+    public int y(int id) {
+        return id % height;
+    }
+
+    /**
+     * @return position in the table of the cell's first neighbour.
+     */
+    public int start(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * @return position in the table after the cell's last neighbour.
+     */
+    public int end(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * @param i a position between {@link #start(int)} and {@link #end(int)}.
+     * @return the id of the neighbour at that position.
+     */
+    public int neighbour(int i) {
+        return neighbours[i];
+    }
+}
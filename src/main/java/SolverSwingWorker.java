@@ -4,6 +4,8 @@ import main.java.gui.BoardPanel;
 import main.java.gui.CellButton;
 import main.java.solvers.ProbabilitySolver;
 import main.java.solvers.Solver;
+import main.java.solvers.SolverBudget;
+import main.java.solvers.SolverPipeline;
 
 import javax.swing.*;
 import java.lang.reflect.Constructor;
@@ -61,11 +63,19 @@ public class SolverSwingWorker extends SwingWorker<Boolean, Boolean> {
 
     @Override
     protected Boolean doInBackground() {
+        try {
+            return solve();
+        } finally {
+            solvers.forEach(Solver::close);
+        }
+    }
+
+    private boolean solve() {
         for (int i = 0; i < solvers.size() && this.running && game.getState() == GameState.RUNNING; i++) {
             Solver solver = solvers.get(i);
             if (solver instanceof ProbabilitySolver) {
                 Cell bestCell = ((ProbabilitySolver) solver).getBestCell();
-                if (!running) {
+                if (bestCell == null || !running) {
                     break;
                 }
                 boardPanel.selectButton(boardPanel.getButtonFromCell(bestCell), bestCell);
@@ -73,6 +83,19 @@ public class SolverSwingWorker extends SwingWorker<Boolean, Boolean> {
                     break;
                 }
                 i = -1;
+            } else if (solver instanceof SolverPipeline) {
+                // The pipeline escalates through its own tiers, guessing last
+                if (!makeChanges(solver)) {
+                    Cell guess = ((SolverPipeline) solver).getBestGuess();
+                    if (guess == null || !running) {
+                        break;
+                    }
+                    boardPanel.selectButton(boardPanel.getButtonFromCell(guess), guess);
+                }
+                if (!loop) {
+                    break;
+                }
+                i = -1;
             } else {
                 boolean somethingChanged = makeChanges(solver);
                 if (somethingChanged) {
@@ -95,21 +118,23 @@ public class SolverSwingWorker extends SwingWorker<Boolean, Boolean> {
         private List<Solver> solvers;
         private BoardPanel board;
         private boolean loop;
+        private SolverBudget budget;
 
         public Builder(MineSweeper game) {
             this.game = game;
+            this.budget = SolverBudget.UNLIMITED;
         }
 
-        public Builder withSolvers(List<Class> solvers) {
+        public Builder withSolvers(List<Class<? extends Solver>> solvers) {
             Cell[][] cells = game.getCells();
             int width = game.getWidth();
             int height = game.getHeight();
             int mines = game.getMines();
             List<Solver> solverList = new ArrayList<>();
-            for (Class solver : solvers) {
+            for (Class<? extends Solver> solver : solvers) {
                 try {
-                    Constructor constructor = solver.getDeclaredConstructor(cells.getClass(), int.class, int.class, int.class);
-                    solverList.add((Solver) constructor.newInstance(cells, width, height, mines));
+                    Constructor<? extends Solver> constructor = solver.getDeclaredConstructor(cells.getClass(), int.class, int.class, int.class);
+                    solverList.add(constructor.newInstance(cells, width, height, mines));
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -133,7 +158,17 @@ public class SolverSwingWorker extends SwingWorker<Boolean, Boolean> {
             return this;
         }
 
+        /**
+         * Limit each call to a solver, so a hard position cannot hold up the
+         * worker. Solvers that run out return their best answer so far.
+         */
+        public Builder withBudget(SolverBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
         public SolverSwingWorker build() {
+            solvers.forEach(solver -> solver.setBudget(budget));
             return new SolverSwingWorker(game, board, disableComponents, solvers, loop);
         }
 
@@ -1,7 +1,9 @@
 package main.java.gui;
 
 import main.java.*;
-import main.java.solvers.ProbabilitySolver;
+import main.java.solvers.ModelCountingSolver;
+import main.java.solvers.MonteCarloSolver;
+import main.java.solvers.SolverBudget;
 import org.apache.commons.math3.fraction.BigFraction;
 
 import javax.swing.*;
@@ -11,11 +13,11 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
 import java.util.*;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class BoardPanel extends JPanel {
 
+    private static final long serialVersionUID = 1L;
+
     private static final Color[] HEAT_MAP_COLOURS = {
             new Color(202, 250, 162),
             new Color(70, 179, 70),
@@ -24,6 +26,8 @@ public class BoardPanel extends JPanel {
             new Color(247, 76, 76),
     };
     private static final Color BEST_CELL_COLOUR = new Color(94, 137, 248, 255);
+    // The heat map is worked out on the event thread, so it must not take long
+    private static final SolverBudget HEAT_MAP_BUDGET = SolverBudget.ofMillis(500);
 
     private final Map<Cell, CellButton> cellAndBtnMapping;
     private final MineSweeper game;
@@ -43,6 +47,7 @@ public class BoardPanel extends JPanel {
         this.unsetCellHints = new ArrayList<>();
         this.setLayout(new GridLayout(game.getHeight(), game.getWidth()));
         setupGrid();
+        game.addChangeListener(this::showChanges);
     }
 
     private void setupGrid() {
@@ -80,7 +85,7 @@ public class BoardPanel extends JPanel {
                 button.setEnabled(false);
             });
             if (showProbabilities) {
-                showHeatMap(new ProbabilitySolver(game.getCells(), game.getWidth(), game.getHeight(), game.getMines()).getProbabilities());
+                showHeatMap(calcProbabilities());
             }
         }
     }
@@ -99,8 +104,6 @@ public class BoardPanel extends JPanel {
     public void selectButton(CellButton button, Cell cell) {
         resetHints();
         game.openCell(cell.getX(), cell.getY());
-        int num = cell.getNumber();
-        openCellButton(button, num);
         if (game.getState() != GameState.RUNNING) {
             endGame();
             if (game.getState() == GameState.LOST) {
@@ -110,29 +113,19 @@ public class BoardPanel extends JPanel {
                     }
                 });
             }
-        } else if (num == 0) {  // if an opening was made, collect opening cells and update them
-            clearOpening(cell);
         }
         // Todo: could speed up visualisation if all 0% cells were selected first
         //  before redoing heatmap
         if (showProbabilities && game.getState() == GameState.RUNNING) {
-            showHeatMap(new ProbabilitySolver(game.getCells(), game.getWidth(), game.getHeight(), game.getMines()).getProbabilities());
+            showHeatMap(calcProbabilities());
         }
     }
 
     public void flagButton(CellButton button, Cell cell) {
-        int newMinesLeft = gameStats.getMinesLeft();
-        var displayState = button.getDisplayState() == DisplayState.FLAG ? DisplayState.CLOSED : DisplayState.FLAG;
-        var cellState = button.getDisplayState() == DisplayState.FLAG ? CellState.CLOSED : CellState.FLAGGED;
-        if (displayState == DisplayState.FLAG) {
-            newMinesLeft -= 1;
-        } else {
-            newMinesLeft += 1;
+        boolean flag = button.getDisplayState() != DisplayState.FLAG;
+        if (game.setFlagged(cell.getX(), cell.getY(), flag)) {
+            gameStats.setMinesLeft(gameStats.getMinesLeft() + (flag ? -1 : 1));
         }
-        gameStats.setMinesLeft(newMinesLeft);
-        cell.setState(cellState);
-        button.setDisplayState(displayState);
-        button.setEnabled(displayState == DisplayState.CLOSED);
     }
 
     private void addRightClickListener(CellButton button, Cell cell) {
@@ -157,37 +150,31 @@ public class BoardPanel extends JPanel {
         button.setEnabled(false);
     }
 
-    private void clearOpening(Cell origin) {
-        Set<Cell> checkedCells = new HashSet<>();
-        checkedCells.add(origin);
-
-        Predicate<Cell> openPredicate = cell -> cell.getState() == CellState.OPEN;
-
-        var neighbours = game.getBoard().getNeighbours(origin.getX(), origin.getY()).stream()
-                .filter(openPredicate)
-                .collect(Collectors.toList());
-
-        while (!neighbours.isEmpty()) {
-            List<Cell> openNeighbours = new ArrayList<>();
-            for (Cell cell : neighbours) {
-                if (checkedCells.contains(cell)) {
-                    continue;
-                }
-                int num = cell.getNumber();
-                CellButton button = cellAndBtnMapping.get(cell);
-                openCellButton(button, num);
-                checkedCells.add(cell);
-                if (num == 0) {
-                    openNeighbours.addAll(game.getBoard().getNeighbours(cell.getX(), cell.getY()));
-                }
-            }
-            neighbours.clear();
-            neighbours = openNeighbours.stream()
-                    .filter(openPredicate)
-                    .collect(Collectors.toList());
+    /**
+     * Update only the buttons of the cells an action changed.
+     */
+    private void showChanges(ChangeSet changes) {
+        int[] opened = changes.getOpened();
+        byte[] numbers = changes.getNumbers();
+        for (int i = 0; i < opened.length; i++) {
+            openCellButton(buttonAt(opened[i]), numbers[i]);
+        }
+        for (int id : changes.getFlagged()) {
+            CellButton button = buttonAt(id);
+            button.setDisplayState(DisplayState.FLAG);
+            button.setEnabled(false);
+        }
+        for (int id : changes.getUnflagged()) {
+            CellButton button = buttonAt(id);
+            button.setDisplayState(DisplayState.CLOSED);
+            button.setEnabled(true);
         }
     }
 
+    private CellButton buttonAt(int id) {
+        return cellAndBtnMapping.get(game.getCell(id / game.getHeight(), id % game.getHeight()));
+    }
+
     private void endGame() {
         gameStats.stopTimer();
         openAllCellButtons();
@@ -258,7 +245,7 @@ public class BoardPanel extends JPanel {
     public void setShowProbabilities(boolean showProbabilities) {
         this.showProbabilities = showProbabilities;
         if (showProbabilities) {
-            showHeatMap(new ProbabilitySolver(game.getCells(), game.getWidth(), game.getHeight(), game.getMines()).getProbabilities());
+            showHeatMap(calcProbabilities());
         } else {
             normaliseAllCellButtons();
         }
@@ -278,6 +265,21 @@ public class BoardPanel extends JPanel {
         }
     }
 
+    private Map<Cell, BigFraction> calcProbabilities() {
+        ModelCountingSolver solver = new ModelCountingSolver(game.getCells(), game.getWidth(), game.getHeight(),
+                game.getMines());
+        solver.setBudget(HEAT_MAP_BUDGET);
+        Map<Cell, BigFraction> probs = solver.getProbabilities();
+        if (!solver.isPartial()) {
+            return probs;
+        }
+        // The frontier is too large to count in time, so estimate it instead
+        MonteCarloSolver sampler = new MonteCarloSolver(game.getCells(), game.getWidth(), game.getHeight(),
+                game.getMines());
+        sampler.setBudget(HEAT_MAP_BUDGET);
+        return sampler.getProbabilities();
+    }
+
     public void showHeatMap(Map<Cell, BigFraction> probs) {
         if (probs.isEmpty()) {
             return;
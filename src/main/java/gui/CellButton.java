@@ -9,6 +9,8 @@ import java.util.Optional;
 
 public class CellButton extends JButton {
 
+    private static final long serialVersionUID = 1L;
+
     public static final String MINE_TEXT = "❌";
     public static final String FLAGGED_MINE_TEXT = "✔";
     private static final int CELL_WIDTH = 50;
@@ -5,6 +5,7 @@ import main.java.SolverSwingWorker;
 import main.java.solvers.MyPBSolver;
 import main.java.solvers.SinglePointSolver;
 import main.java.solvers.Solver;
+import main.java.solvers.SolverBudget;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
@@ -14,7 +15,12 @@ import java.util.List;
 
 public class GameFrame extends JFrame {
 
-    private final List<Class> solvers;
+    private static final long serialVersionUID = 1L;
+
+    // How long a solver may think about a move before answering with what it has
+    private static final SolverBudget SOLVER_BUDGET = SolverBudget.ofMillis(5000);
+
+    private final List<Class<? extends Solver>> solvers;
     private final GameStatsPanel gameStats;
     private final JButton resetBtn;
     private final JButton hintBtn;
@@ -50,7 +56,7 @@ public class GameFrame extends JFrame {
         solvers.add(SinglePointSolver.class);
     }
 
-    public void setSolvers(List<Class> solvers) {
+    public void setSolvers(List<Class<? extends Solver>> solvers) {
         this.solvers.clear();
         this.solvers.addAll(solvers);
     }
@@ -114,6 +120,7 @@ public class GameFrame extends JFrame {
                 // just use a pb solver rather than incremental solvers
                 Solver p = new MyPBSolver(game.getCells(), game.getWidth(),
                         game.getHeight(), game.getMines());
+                p.setBudget(SOLVER_BUDGET);
                 boardPanel.setHintCells(p.getKnownCells());
             }
             boardPanel.showHint();
@@ -125,6 +132,7 @@ public class GameFrame extends JFrame {
                     .withBoardPanel(boardPanel)
                     .withSolvers(solvers)
                     .setLoop(false)
+                    .withBudget(SOLVER_BUDGET)
                     .build();
             boardPanel.setEnabled(false);
             disableComponents.forEach(component -> component.setEnabled(false));
@@ -137,6 +145,7 @@ public class GameFrame extends JFrame {
                     .withBoardPanel(boardPanel)
                     .withSolvers(solvers)
                     .setLoop(true)
+                    .withBudget(SOLVER_BUDGET)
                     .build();
             boardPanel.setEnabled(false);
             disableComponents.forEach(component -> component.setEnabled(false));
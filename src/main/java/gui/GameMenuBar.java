@@ -3,8 +3,15 @@ package main.java.gui;
 import main.java.Difficulty;
 import main.java.MineSweeper;
 import main.java.solvers.MyPBSolver;
-import main.java.solvers.ProbabilitySolver;
+import main.java.solvers.LookaheadSolver;
+import main.java.solvers.ModelCountingSolver;
+import main.java.solvers.MonteCarloSolver;
+import main.java.solvers.GaussianSolver;
+import main.java.solvers.PatternSolver;
+import main.java.solvers.SubsetSolver;
 import main.java.solvers.SinglePointSolver;
+import main.java.solvers.Solver;
+import main.java.solvers.SolverPipeline;
 
 import javax.swing.*;
 import java.util.ArrayList;
@@ -12,6 +19,8 @@ import java.util.List;
 
 public class GameMenuBar extends JMenuBar {
 
+    private static final long serialVersionUID = 1L;
+
     private final GameFrame gameFrame;
 
     private JRadioButtonMenuItem easyDiffRb;
@@ -19,8 +28,14 @@ public class GameMenuBar extends JMenuBar {
     private JRadioButtonMenuItem hardDiffRb;
 
     private JCheckBoxMenuItem singlePointCb;
+    private JCheckBoxMenuItem patternCb;
+    private JCheckBoxMenuItem subsetCb;
+    private JCheckBoxMenuItem gaussianCb;
     private JCheckBoxMenuItem pseudoBooleanCb;
     private JCheckBoxMenuItem probabilityCb;
+    private JCheckBoxMenuItem monteCarloCb;
+    private JCheckBoxMenuItem lookaheadCb;
+    private JCheckBoxMenuItem pipelineCb;
 
     public GameMenuBar(GameFrame gameFrame) {
         this.gameFrame = gameFrame;
@@ -43,10 +58,22 @@ public class GameMenuBar extends JMenuBar {
 
         singlePointCb = new JCheckBoxMenuItem("Single Point");
         singlePointCb.setSelected(true);
+        patternCb = new JCheckBoxMenuItem("Patterns");
+        patternCb.setSelected(false);
+        subsetCb = new JCheckBoxMenuItem("Subset Reduction");
+        subsetCb.setSelected(false);
+        gaussianCb = new JCheckBoxMenuItem("Gaussian Elimination");
+        gaussianCb.setSelected(false);
         pseudoBooleanCb = new JCheckBoxMenuItem("Pseudo-Boolean");
         pseudoBooleanCb.setSelected(false);
         probabilityCb = new JCheckBoxMenuItem("Probability");
         probabilityCb.setSelected(false);
+        monteCarloCb = new JCheckBoxMenuItem("Monte Carlo Probability");
+        monteCarloCb.setSelected(false);
+        lookaheadCb = new JCheckBoxMenuItem("Lookahead Guess");
+        lookaheadCb.setSelected(false);
+        pipelineCb = new JCheckBoxMenuItem("Tiered Pipeline");
+        pipelineCb.setSelected(false);
     }
 
     private void addMenusItems(JMenu menu) {
@@ -62,8 +89,14 @@ public class GameMenuBar extends JMenuBar {
         menu.addSeparator();
 
         menu.add(singlePointCb);
+        menu.add(patternCb);
+        menu.add(subsetCb);
+        menu.add(gaussianCb);
         menu.add(pseudoBooleanCb);
         menu.add(probabilityCb);
+        menu.add(monteCarloCb);
+        menu.add(lookaheadCb);
+        menu.add(pipelineCb);
 
         menu.addSeparator();
 
@@ -90,8 +123,14 @@ public class GameMenuBar extends JMenuBar {
         });
 
         singlePointCb.addActionListener(e -> setSolvers());
+        patternCb.addActionListener(e -> setSolvers());
+        subsetCb.addActionListener(e -> setSolvers());
+        gaussianCb.addActionListener(e -> setSolvers());
         pseudoBooleanCb.addActionListener(e -> setSolvers());
         probabilityCb.addActionListener(e -> setSolvers());
+        monteCarloCb.addActionListener(e -> setSolvers());
+        lookaheadCb.addActionListener(e -> setSolvers());
+        pipelineCb.addActionListener(e -> setSolvers());
     }
 
     private void changeGameDifficulty() {
@@ -110,15 +149,35 @@ public class GameMenuBar extends JMenuBar {
     }
 
     private void setSolvers() {
-        List<Class> solvers = new ArrayList<>();
+        List<Class<? extends Solver>> solvers = new ArrayList<>();
+        // The pipeline runs every tier itself, so it replaces the other solvers
+        if (pipelineCb.isSelected()) {
+            gameFrame.setSolvers(List.of(SolverPipeline.class));
+            return;
+        }
         if (singlePointCb.isSelected()) {
             solvers.add(SinglePointSolver.class);
         }
+        if (patternCb.isSelected()) {
+            solvers.add(PatternSolver.class);
+        }
+        if (subsetCb.isSelected()) {
+            solvers.add(SubsetSolver.class);
+        }
+        if (gaussianCb.isSelected()) {
+            solvers.add(GaussianSolver.class);
+        }
         if (pseudoBooleanCb.isSelected()) {
             solvers.add(MyPBSolver.class);
         }
         if (probabilityCb.isSelected()) {
-            solvers.add(ProbabilitySolver.class);
+            solvers.add(ModelCountingSolver.class);
+        }
+        if (monteCarloCb.isSelected()) {
+            solvers.add(MonteCarloSolver.class);
+        }
+        if (lookaheadCb.isSelected()) {
+            solvers.add(LookaheadSolver.class);
         }
         gameFrame.setSolvers(solvers);
     }
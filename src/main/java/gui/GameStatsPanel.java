@@ -9,6 +9,8 @@ import java.awt.*;
 
 public class GameStatsPanel extends JPanel {
 
+    private static final long serialVersionUID = 1L;
+
     private final JLabel gameTimeLbl;
     private final JLabel movesLbl;
     private final JLabel minesLeftLbl;
@@ -0,0 +1,172 @@
+package main.java.sims;
+
+import main.java.MineField;
+import main.java.MineSweeper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * A file of pre-generated mine layouts, all of the same size, so identical
+ * games can be replayed across solvers and runs.
+ * <p>
+ * The file starts with a header of six big-endian ints: the magic number
+ * {@code PBSC}, the format version, the width, the height, the number of mines
+ * and the number of boards. Each board follows as a bitset of
+ * {@code ceil(width * height / 64)} longs, where bit {@code x * height + y} is
+ * set if there is a mine at (x, y). Corpora are memory-mapped when read, so no
+ * board is generated or copied until it is used. A single mapping can cover
+ * at most 2 GB, so the boards are mapped in chunks of whole boards.
+ */
+public class BoardCorpus {
+
+    private static final int MAGIC = 0x50425343;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE;
+
+    private final int width;
+    private final int height;
+    private final int mines;
+    private final int size;
+    private final int wordsPerBoard;
+    private final int boardsPerChunk;
+    private final LongBuffer[] chunks;
+
+    private BoardCorpus(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException("Not a board corpus");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a board corpus");
+        }
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.mines = header.getInt();
+        this.size = header.getInt();
+        this.wordsPerBoard = wordsPerBoard(width, height);
+        long boardBytes = (long) wordsPerBoard * Long.BYTES;
+        if (channel.size() - HEADER_BYTES < Math.multiplyExact(boardBytes, size)) {
+            throw new IOException("Board corpus is truncated");
+        }
+
+        this.boardsPerChunk = (int) Math.max(1, MAX_CHUNK_BYTES / boardBytes);
+        this.chunks = new LongBuffer[(size + boardsPerChunk - 1) / boardsPerChunk];
+        for (int c = 0; c < chunks.length; c++) {
+            long first = (long) c * boardsPerChunk;
+            long boards = Math.min(boardsPerChunk, size - first);
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * boardBytes,
+                    boards * boardBytes).asLongBuffer();
+        }
+    }
+
+    /**
+     * Memory-map an existing corpus file.
+     */
+    public static BoardCorpus open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BoardCorpus(channel);
+        }
+    }
+
+    /**
+     * Generate a corpus of uniformly random boards and write it to a file.
+     *
+     * @param seed seed for the whole corpus; the same seed always gives the
+     *             same boards.
+     */
+    public static void write(Path path, int width, int height, int mines, int count, long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(mines);
+            out.writeInt(count);
+            int words = wordsPerBoard(width, height);
+            for (int i = 0; i < count; i++) {
+                // toLongArray() drops trailing empty words, so pad them back
+                long[] bits = MineField.plantMines(height, width, mines, random).toLongArray();
+                for (int w = 0; w < words; w++) {
+                    out.writeLong(w < bits.length ? bits[w] : 0L);
+                }
+            }
+        }
+    }
+
+    private static int wordsPerBoard(int width, int height) {
+        return (width * height + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * @return the number of boards in the corpus.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the mines of the board at the given index, as taken by
+     * {@link MineField#MineField(int, int, BitSet)}.
+     * @throws IndexOutOfBoundsException if there is no board at the index.
+     */
+    public BitSet getMineBits(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No board " + index + " in a corpus of " + size);
+        }
+        long[] words = new long[wordsPerBoard];
+        // A chunk is at most 2 GB, so the offset within it fits in an int
+        chunks[index / boardsPerChunk].get((index % boardsPerChunk) * wordsPerBoard, words);
+        return BitSet.valueOf(words);
+    }
+
+    public MineField createField(int index) {
+        return new MineField(height, width, getMineBits(index));
+    }
+
+    public MineSweeper createGame(int index) {
+        return new MineSweeper(width, height, mines, createField(index));
+    }
+
+    /**
+     * Generate a corpus file.
+     * <p>
+     * Usage: {@code BoardCorpus <file> <width> <height> <mines> <count> [seed]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: BoardCorpus <file> <width> <height> <mines> <count> [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+        write(Paths.get(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]), seed);
+    }
+}
@@ -36,8 +36,7 @@ public class GamePlayer {
             for (Map.Entry<Cell, Boolean> pair : known.entrySet()) {
                 Cell cell = pair.getKey();
                 if (pair.getValue()) {
-                    if (cell.getState() == CellState.CLOSED) {
-                        cell.setState(CellState.FLAGGED);
+                    if (game.setFlagged(cell.getX(), cell.getY(), true)) {
                         change = true;
                     }
                 } else {
@@ -48,9 +47,14 @@ public class GamePlayer {
                 }
             }
             if (!change) {
-                int x = rand.nextInt(game.getWidth());
-                int y = rand.nextInt(game.getHeight());
-                game.openCell(x, y);
+                Cell guess = solver.getBestGuess();
+                if (guess != null) {
+                    game.openCell(guess.getX(), guess.getY());
+                } else {
+                    int x = rand.nextInt(game.getWidth());
+                    int y = rand.nextInt(game.getHeight());
+                    game.openCell(x, y);
+                }
             }
         }
         endTime = System.nanoTime();
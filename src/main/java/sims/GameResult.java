@@ -0,0 +1,47 @@
+package main.java.sims;
+
+import main.java.GameState;
+
+/**
+ * The outcome of a single simulated game.
+ */
+public class GameResult {
+
+    private final int game;
+    private final GameState state;
+    private final double elapsedTime;
+    private final int openCells;
+
+    public GameResult(int game, GameState state, double elapsedTime, int openCells) {
+        this.game = game;
+        this.state = state;
+        this.elapsedTime = elapsedTime;
+        this.openCells = openCells;
+    }
+
+    /**
+     * @return the index of the game within its simulation run.
+     */
+    public int getGame() {
+        return game;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public boolean isWon() {
+        return state == GameState.WON;
+    }
+
+    /**
+     * @return time taken to play the game, in nanoseconds.
+     */
+    public double getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public int getOpenCells() {
+        return openCells;
+    }
+}
@@ -0,0 +1,106 @@
+package main.java.sims;
+
+import main.java.Cell;
+import main.java.solvers.AbstractSolver;
+import main.java.solvers.MyPBSolver;
+import main.java.solvers.Solver;
+import main.java.solvers.SolverBudget;
+import main.java.solvers.SolverPipeline;
+
+import java.util.Map;
+
+/**
+ * Wraps a solver and records a {@link MoveRecord} for every call to
+ * {@link #getKnownCells()}. The frontier is measured before the call and is
+ * not counted in its time. SAT calls and models are read from the solver's PB
+ * solver (a {@link MyPBSolver} or the PB solver of a {@link SolverPipeline}),
+ * and are 0 for solvers without one.
+ * <p>
+ * One instance is used for one game.
+ */
+public class InstrumentedSolver implements Solver {
+
+    private final Solver solver;
+    private final String name;
+    private final int game;
+    private final SolverStatistics statistics;
+    private int moves;
+
+    /**
+     * @param name       name the moves are recorded under.
+     * @param game       index of the game the solver plays.
+     * @param statistics where the moves are recorded.
+     */
+    public InstrumentedSolver(Solver solver, String name, int game, SolverStatistics statistics) {
+        this.solver = solver;
+        this.name = name;
+        this.game = game;
+        this.statistics = statistics;
+    }
+
+    public InstrumentedSolver(Solver solver, int game, SolverStatistics statistics) {
+        this(solver, solver.getClass().getSimpleName(), game, statistics);
+    }
+
+    /**
+     * @return the solver being measured.
+     */
+    public Solver getSolver() {
+        return solver;
+    }
+
+    public Map<Cell, Boolean> getKnownCells() {
+        int frontierSize = 0;
+        int components = 0;
+        if (solver instanceof AbstractSolver) {
+            AbstractSolver frontier = (AbstractSolver) solver;
+            frontierSize = frontier.getClosedShoreCells().size();
+            components = frontier.getShoreComponents().size();
+        }
+        MyPBSolver pbSolver = pbSolverOf(solver);
+        long satCalls = pbSolver == null ? 0 : pbSolver.getSatCalls();
+        long models = pbSolver == null ? 0 : pbSolver.getModelsFound();
+
+        long start = System.nanoTime();
+        Map<Cell, Boolean> known = solver.getKnownCells();
+        long time = System.nanoTime() - start;
+
+        if (pbSolver != null) {
+            satCalls = pbSolver.getSatCalls() - satCalls;
+            models = pbSolver.getModelsFound() - models;
+        }
+        statistics.record(new MoveRecord(name, game, moves++, time, satCalls, models,
+                frontierSize, components, known.size(), solver.isPartial()));
+        return known;
+    }
+
+    @Override
+    public Cell getBestGuess() {
+        return solver.getBestGuess();
+    }
+
+    @Override
+    public void setBudget(SolverBudget budget) {
+        solver.setBudget(budget);
+    }
+
+    @Override
+    public boolean isPartial() {
+        return solver.isPartial();
+    }
+
+    @Override
+    public void close() {
+        solver.close();
+    }
+
+    private static MyPBSolver pbSolverOf(Solver solver) {
+        if (solver instanceof MyPBSolver) {
+            return (MyPBSolver) solver;
+        }
+        if (solver instanceof SolverPipeline) {
+            return ((SolverPipeline) solver).getPBSolver();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+package main.java.sims;
+
+/**
+ * A histogram of non-negative long values with buckets of bounded relative
+ * width, in the manner of HdrHistogram. Values below 128 each get their own
+ * bucket; above that every power of two is split into 64 buckets, so a value
+ * read back from the histogram is within 1/64 (about 1.6%) of the value that
+ * was recorded, whatever its size. Memory is fixed at a few thousand counters.
+ * <p>
+ * Not thread-safe; record into one histogram per thread and {@link #add}
+ * them together.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = SUB_COUNT + (Long.SIZE - SUB_BITS) * HALF_COUNT;
+
+    private final long[] counts;
+    private long totalCount;
+    private long min;
+    private long max;
+    private double sum;
+
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+        this.min = Long.MAX_VALUE;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (int) (value >>> shift) - HALF_COUNT;
+    }
+
+    /**
+     * @return the largest value that falls in the bucket.
+     */
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (bucket - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        long highest = ((sub + 1) << shift) - 1;
+        // The top bucket ends at 2^64 - 1, which overflows
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is negative.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cannot record a negative value: " + value);
+        }
+        counts[bucketOf(value)]++;
+        totalCount++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+    }
+
+    /**
+     * Add every value recorded in another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the smallest value recorded, exactly, or 0 if there are none.
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the largest value recorded, exactly, or 0 if there are none.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return a value that at least the given percentage of the recorded
+     * values are no larger than, to within the histogram's precision. 0 if
+     * nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,87 @@
+package main.java.sims;
+
+/**
+ * What a solver did for one call to {@code getKnownCells()}.
+ */
+public class MoveRecord {
+
+    private final String solver;
+    private final int game;
+    private final int move;
+    private final long time;
+    private final long satCalls;
+    private final long models;
+    private final int frontierSize;
+    private final int components;
+    private final int resolvedCells;
+    private final boolean partial;
+
+    /**
+     * @param solver        name of the solver.
+     * @param game          index of the game within its run.
+     * @param move          index of the move within its game.
+     * @param time          wall time of the call, in nanoseconds.
+     * @param satCalls      SAT calls made during the call.
+     * @param models        models found by the SAT solver during the call.
+     * @param frontierSize  closed shore cells before the call.
+     * @param components    frontier components before the call.
+     * @param resolvedCells known cells returned.
+     * @param partial       whether the call ran out of budget.
+     */
+    public MoveRecord(String solver, int game, int move, long time, long satCalls, long models,
+                      int frontierSize, int components, int resolvedCells, boolean partial) {
+        this.solver = solver;
+        this.game = game;
+        this.move = move;
+        this.time = time;
+        this.satCalls = satCalls;
+        this.models = models;
+        this.frontierSize = frontierSize;
+        this.components = components;
+        this.resolvedCells = resolvedCells;
+        this.partial = partial;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public int getGame() {
+        return game;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return wall time of the call, in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public long getSatCalls() {
+        return satCalls;
+    }
+
+    public long getModels() {
+        return models;
+    }
+
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    public int getComponents() {
+        return components;
+    }
+
+    public int getResolvedCells() {
+        return resolvedCells;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+}
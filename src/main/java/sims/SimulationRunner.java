@@ -0,0 +1,122 @@
+package main.java.sims;
+
+import main.java.MineSweeper;
+import main.java.solvers.ComponentCache;
+import main.java.solvers.Solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Plays many games at once, each on its own {@link MineSweeper} with its own
+ * solver instance.
+ * <p>
+ * The games are queued on a fixed pool of worker threads, which take the next
+ * unplayed game as they finish one. If a game fails, or the calling thread
+ * is interrupted, the games not yet played are cancelled and the run fails
+ * rather than returning the results it has.
+ * <p>
+ * Solvers only share a {@link ComponentCache} if the solver factory gives
+ * them one. Caches added with {@link #addSharedCache(ComponentCache)} are
+ * cleared at the start of every run, so each run starts cold and counts its
+ * own hits.
+ */
+public class SimulationRunner {
+
+    private final int threads;
+    private final IntFunction<MineSweeper> gameFactory;
+    private final BiFunction<Integer, MineSweeper, Solver> solverFactory;
+    private final List<ComponentCache<?>> sharedCaches;
+
+    /**
+     * @param threads       number of games played at the same time.
+     * @param gameFactory   creates the game with the given index.
+     * @param solverFactory creates the solver used to play a game.
+     */
+    public SimulationRunner(int threads, IntFunction<MineSweeper> gameFactory,
+                            Function<MineSweeper, Solver> solverFactory) {
+        this(threads, gameFactory, (index, game) -> solverFactory.apply(game));
+    }
+
+    /**
+     * @param solverFactory creates the solver used to play a game, given the
+     *                      game's index and the game.
+     */
+    public SimulationRunner(int threads, IntFunction<MineSweeper> gameFactory,
+                            BiFunction<Integer, MineSweeper, Solver> solverFactory) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+        this.gameFactory = gameFactory;
+        this.solverFactory = solverFactory;
+        this.sharedCaches = new ArrayList<>();
+    }
+
+    /**
+     * @param cache a cache the solver factory shares between the games,
+     *              cleared at the start of every run.
+     */
+    public void addSharedCache(ComponentCache<?> cache) {
+        sharedCaches.add(cache);
+    }
+
+    /**
+     * Play the given number of games, blocking until they have all finished.
+     *
+     * @return the result of each game, ordered by game index.
+     * @throws IllegalStateException if a game fails, with the game's failure
+     *                               as its cause, or if the calling thread is
+     *                               interrupted, in which case the interrupt
+     *                               is kept.
+     */
+    public List<GameResult> run(int games) {
+        for (ComponentCache<?> cache : sharedCaches) {
+            cache.clear();
+            cache.resetStatistics();
+        }
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, games)),
+                task -> new Thread(task, "simulation-" + workers.getAndIncrement()));
+        try {
+            List<Future<GameResult>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> play(index)));
+            }
+            List<GameResult> results = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("game " + i + " failed", e.getCause());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted before every game was played", e);
+        } finally {
+            // Cancels the games left if the run failed
+            pool.shutdownNow();
+        }
+    }
+
+    private GameResult play(int index) {
+        MineSweeper game = gameFactory.apply(index);
+        GamePlayer player;
+        try (Solver solver = solverFactory.apply(index, game)) {
+            player = new GamePlayer(game, solver);
+            player.play();
+        }
+        return new GameResult(index, game.getState(), player.getElapsedTime(), game.getOpenCells());
+    }
+}
@@ -1,100 +1,101 @@
 package main.java.sims;
 
-import main.java.Board;
 import main.java.Difficulty;
-import main.java.MineField;
 import main.java.MineSweeper;
+import main.java.solvers.ComponentCache;
 import main.java.solvers.MyPBSolver;
 import main.java.solvers.ProbabilitySolver;
+import main.java.solvers.Solver;
+import main.java.solvers.SolverBudget;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntFunction;
 
 public class SolverProfiler {
 
-    private final List<Class> SOLVER_CLASS_LIST = Arrays.asList(
+    private final List<Class<? extends Solver>> SOLVER_CLASS_LIST = Arrays.asList(
             //        SinglePointSolver.class,
             MyPBSolver.class,
             ProbabilitySolver.class
     );
 
-    public static void main(String[] args) {
-        new SolverProfiler().startSim(100);
-    }
-
-    private void startSim(int howMany) {
-        List<boolean[][]> fields = generateRandomFields(howMany, Difficulty.EXPERT);
-        List<Double> times = new ArrayList<>();
-        for (int i = 0; i < howMany; i++) {
-            MineSweeper game1 = new MineSweeper(Difficulty.EXPERT);
-//            MineSweeper game2 = new MineSweeper(9, 9, 10);
-            replaceField(game1, fields.get(i));
-//            replaceField(game2, fields.get(i));
-
-            MyPBSolver pbSolver = new MyPBSolver(game1.getCells(), game1.getWidth(),
-                    game1.getHeight(), game1.getMines());
-
-//            ProbabilitySolver probSolver = new ProbabilitySolver(game2.getCells(),
-//                    game2.getWidth(), game2.getHeight(), game2.getMines());
-
-            GamePlayer player1 = new GamePlayer(game1, pbSolver);
-//            GamePlayer player2 = new GamePlayer(game2, probSolver);
-
-            player1.play();
-//            player2.play();
+    /**
+     * Play seeded expert games, or every game of a {@link BoardCorpus} if a
+     * corpus file is given, and print a summary of every move.
+     * <p>
+     * Usage: {@code SolverProfiler [corpus] [-csv file] [-json file]
+     * [-budget ms]}, where the moves are also written to the CSV and JSON
+     * files if given, and each move is limited to the given time if a budget
+     * is given.
+     */
+    public static void main(String[] args) throws IOException {
+        SolverProfiler profiler = new SolverProfiler();
+        String corpusPath = null;
+        Path csvPath = null;
+        Path jsonPath = null;
+        SolverBudget budget = SolverBudget.UNLIMITED;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-csv") && i + 1 < args.length) {
+                csvPath = Paths.get(args[++i]);
+            } else if (args[i].equals("-json") && i + 1 < args.length) {
+                jsonPath = Paths.get(args[++i]);
+            } else if (args[i].equals("-budget") && i + 1 < args.length) {
+                budget = SolverBudget.ofMillis(Long.parseLong(args[++i]));
+            } else {
+                corpusPath = args[i];
+            }
+        }
 
-//            System.out.println("PB\tvs.\tProbability");
-//            System.out.println(player1.getElapsedTime() + "\t" + player2.getElapsedTime());
-            times.add(player1.getElapsedTime());
+        SolverStatistics statistics;
+        if (corpusPath != null) {
+            BoardCorpus corpus = BoardCorpus.open(Paths.get(corpusPath));
+            statistics = profiler.startSim(corpus.size(), corpus::createGame, budget);
+        } else {
+            statistics = profiler.startSim(100, seed -> new MineSweeper(Difficulty.EXPERT, seed), budget);
+        }
+        statistics.printSummary(System.out);
+        if (csvPath != null) {
+            statistics.writeCsv(csvPath);
         }
+        if (jsonPath != null) {
+            statistics.writeJson(jsonPath);
+        }
+    }
 
-        double avg = times.stream()
-                .mapToDouble(e -> e)
+    private SolverStatistics startSim(int howMany, IntFunction<MineSweeper> games, SolverBudget budget) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        SolverStatistics statistics = new SolverStatistics();
+        // The games of a run share what they learn about each component shape
+        ComponentCache<Boolean[]> cache = new ComponentCache<>(ComponentCache.DEFAULT_CAPACITY);
+        SimulationRunner runner = new SimulationRunner(threads, games, (index, game) -> {
+            MyPBSolver solver = new MyPBSolver(game.getCells(), game.getWidth(), game.getHeight(),
+                    game.getMines(), true);
+            solver.setKnownCellsCache(cache);
+            solver.setBudget(budget);
+            return new InstrumentedSolver(solver, index, statistics);
+        });
+        runner.addSharedCache(cache);
+
+        long start = System.nanoTime();
+        List<GameResult> results = runner.run(howMany);
+        double wallTime = System.nanoTime() - start;
+
+        double avg = results.stream()
+                .mapToDouble(GameResult::getElapsedTime)
                 .average()
                 .getAsDouble();
+        long wins = results.stream()
+                .filter(GameResult::isWon)
+                .count();
 
         System.out.println(avg / 1000000000);
-    }
-
-    private void replaceField(MineSweeper game, boolean[][] newField) {
-        try {
-            Board board = game.getBoard();
-            MineField mineField = board.getField();
-            Field field = mineField.getClass().getDeclaredField("field");
-            field.setAccessible(true);
-            field.set(mineField, newField);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private boolean[][] deepCopy(boolean[][] matrix) {
-        return java.util.Arrays.stream(matrix)
-                .map(boolean[]::clone)
-                .toArray($ -> matrix.clone());
-    }
-
-    private List<boolean[][]> generateRandomFields(int howMany,
-                                                   Difficulty diff) {
-        List<boolean[][]> randomFields = new ArrayList<>();
-
-        for (int i = 0; i < howMany; i++) {
-            MineField mineField = new MineField(diff.height, diff.width,
-                    diff.mines);
-            boolean[][] field = null;
-            try {
-                Field f = mineField.getClass().getDeclaredField("field");
-                f.setAccessible(true);
-                field = (boolean[][]) f.get(mineField);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                e.printStackTrace();
-            }
-            if (field != null) {
-                randomFields.add(field);
-            }
-        }
-        return randomFields;
+        System.out.println("Won " + wins + "/" + howMany + " games, "
+                + (howMany / (wallTime / 1000000000)) + " games/s on " + threads + " threads");
+        System.out.println("Component cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+        return statistics;
     }
 }
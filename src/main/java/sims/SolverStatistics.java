@@ -0,0 +1,190 @@
+package main.java.sims;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects the {@link MoveRecord}s of a simulation run, keeping every record
+ * for export and a histogram of each metric per solver for the summary.
+ * Records may come from many games played at once.
+ */
+public class SolverStatistics {
+
+    public enum Metric {
+        TIME("time ms", MoveRecord::getTime),
+        SAT_CALLS("sat calls", MoveRecord::getSatCalls),
+        MODELS("models", MoveRecord::getModels),
+        FRONTIER("frontier", MoveRecord::getFrontierSize),
+        COMPONENTS("components", MoveRecord::getComponents),
+        RESOLVED("resolved", MoveRecord::getResolvedCells);
+
+        private final String label;
+        private final ToLongFunction<MoveRecord> value;
+
+        Metric(String label, ToLongFunction<MoveRecord> value) {
+            this.label = label;
+            this.value = value;
+        }
+    }
+
+    private static final String[] COLUMNS = {"solver", "game", "move", "time_ns", "sat_calls", "models",
+            "frontier_cells", "components", "resolved_cells", "partial"};
+
+    private final List<MoveRecord> records;
+    private final Map<String, Map<Metric, LatencyHistogram>> histograms;
+
+    public SolverStatistics() {
+        this.records = new ArrayList<>();
+        this.histograms = new TreeMap<>();
+    }
+
+    public synchronized void record(MoveRecord record) {
+        records.add(record);
+        Map<Metric, LatencyHistogram> solverHistograms = histograms.computeIfAbsent(record.getSolver(), k -> {
+            Map<Metric, LatencyHistogram> map = new EnumMap<>(Metric.class);
+            for (Metric metric : Metric.values()) {
+                map.put(metric, new LatencyHistogram());
+            }
+            return map;
+        });
+        for (Metric metric : Metric.values()) {
+            solverHistograms.get(metric).record(metric.value.applyAsLong(record));
+        }
+    }
+
+    /**
+     * @return every record so far, in the order they were recorded.
+     */
+    public synchronized List<MoveRecord> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    public synchronized Set<String> getSolvers() {
+        return new TreeSet<>(histograms.keySet());
+    }
+
+    /**
+     * @return a copy of the solver's histogram of the metric, empty if the
+     * solver has made no moves.
+     */
+    public synchronized LatencyHistogram getHistogram(String solver, Metric metric) {
+        LatencyHistogram copy = new LatencyHistogram();
+        Map<Metric, LatencyHistogram> solverHistograms = histograms.get(solver);
+        if (solverHistograms != null) {
+            copy.add(solverHistograms.get(metric));
+        }
+        return copy;
+    }
+
+    /**
+     * @return how many of the solver's moves ran out of budget.
+     */
+    public synchronized long getPartialMoves(String solver) {
+        return records.stream()
+                .filter(record -> record.getSolver().equals(solver) && record.isPartial())
+                .count();
+    }
+
+    /**
+     * Write one line per move, with a header line.
+     */
+    public void writeCsv(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path)) {
+            out.write(String.join(",", COLUMNS));
+            out.write('\n');
+            for (MoveRecord record : getRecords()) {
+                out.write(csvField(record.getSolver()) + ',' + String.join(",", values(record)) + '\n');
+            }
+        }
+    }
+
+    /**
+     * Write every move, and the summary of each solver, as a JSON object.
+     */
+    public void writeJson(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path)) {
+            out.write("{\n  \"moves\": [");
+            List<MoveRecord> moves = getRecords();
+            for (int i = 0; i < moves.size(); i++) {
+                MoveRecord record = moves.get(i);
+                String[] values = values(record);
+                StringBuilder line = new StringBuilder(i == 0 ? "\n    {" : ",\n    {");
+                line.append('"').append(COLUMNS[0]).append("\": ").append(jsonString(record.getSolver()));
+                for (int c = 1; c < COLUMNS.length; c++) {
+                    line.append(", \"").append(COLUMNS[c]).append("\": ").append(values[c - 1]);
+                }
+                out.write(line.append('}').toString());
+            }
+            out.write("\n  ],\n  \"summary\": {");
+            boolean firstSolver = true;
+            for (String solver : getSolvers()) {
+                out.write((firstSolver ? "\n    " : ",\n    ") + jsonString(solver) + ": {");
+                out.write("\n      \"partial_moves\": " + getPartialMoves(solver));
+                firstSolver = false;
+                for (Metric metric : Metric.values()) {
+                    LatencyHistogram histogram = getHistogram(solver, metric);
+                    out.write(",\n      " + jsonString(metric.name().toLowerCase())
+                            + ": {\"count\": " + histogram.getTotalCount()
+                            + ", \"mean\": " + histogram.getMean()
+                            + ", \"p50\": " + histogram.getValueAtPercentile(50)
+                            + ", \"p99\": " + histogram.getValueAtPercentile(99)
+                            + ", \"max\": " + histogram.getMax() + "}");
+                }
+                out.write("\n    }");
+            }
+            out.write("\n  }\n}\n");
+        }
+    }
+
+    /**
+     * Print the p50, p99 and max of every metric for each solver.
+     */
+    public void printSummary(PrintStream out) {
+        for (String solver : getSolvers()) {
+            out.println(solver + ": " + getHistogram(solver, Metric.TIME).getTotalCount() + " moves, "
+                    + getPartialMoves(solver) + " partial");
+            for (Metric metric : Metric.values()) {
+                LatencyHistogram histogram = getHistogram(solver, metric);
+                if (metric == Metric.TIME) {
+                    out.printf("  %-10s p50 %10.3f  p99 %10.3f  max %10.3f%n", metric.label,
+                            histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                            histogram.getMax() / 1e6);
+                } else {
+                    out.printf("  %-10s p50 %10d  p99 %10d  max %10d%n", metric.label,
+                            histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                            histogram.getMax());
+                }
+            }
+        }
+    }
+
+    private static String[] values(MoveRecord record) {
+        return new String[]{
+                String.valueOf(record.getGame()),
+                String.valueOf(record.getMove()),
+                String.valueOf(record.getTime()),
+                String.valueOf(record.getSatCalls()),
+                String.valueOf(record.getModels()),
+                String.valueOf(record.getFrontierSize()),
+                String.valueOf(record.getComponents()),
+                String.valueOf(record.getResolvedCells()),
+                String.valueOf(record.isPartial())
+        };
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -2,26 +2,126 @@ package main.java.solvers;
 
 import main.java.Cell;
 import main.java.CellState;
+import main.java.FrontierTracker;
+import main.java.GameEngine;
+import main.java.GameView;
+import main.java.NeighbourIndex;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public abstract class AbstractSolver implements Solver {
 
+    // Values held by a state snapshot for cells that are not open (open cells
+    // hold their number)
+    protected static final byte SNAPSHOT_CLOSED = GameEngine.CLOSED;
+    protected static final byte SNAPSHOT_FLAGGED = GameEngine.FLAGGED;
+
     protected final Cell[][] cells;
     protected final int width;
     protected final int height;
     protected final int mines;
+    protected final NeighbourIndex neighbourIndex;
+    protected final FrontierTracker frontier;
+
+    // The budget of each call, and what is left of it in the current call.
+    // Probes may spend it from several threads at once
+    private SolverBudget budget;
+    private volatile long deadline;
+    private final AtomicLong stepsLeft;
+    private volatile boolean partial;
 
     public AbstractSolver(Cell[][] cells, int width, int height, int mines) {
         this.cells = cells;
         this.width = width;
         this.height = height;
         this.mines = mines;
+        this.neighbourIndex = NeighbourIndex.of(width, height);
+        this.frontier = FrontierTracker.of(cells);
+        this.budget = SolverBudget.UNLIMITED;
+        this.stepsLeft = new AtomicLong(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void setBudget(SolverBudget budget) {
+        this.budget = Objects.requireNonNull(budget);
+    }
+
+    public SolverBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Start spending the budget for a new call.
+     */
+    protected void startBudget() {
+        partial = false;
+        deadline = budget.hasTimeLimit() ? System.nanoTime() + budget.getTimeLimitMillis() * 1_000_000 : 0;
+        stepsLeft.set(budget.hasStepLimit() ? budget.getStepLimit() : Long.MAX_VALUE);
+    }
+
+    /**
+     * Take steps out of the current call's budget. Once the budget has run
+     * out the call's answer is marked as partial.
+     *
+     * @return false if the budget has run out and the steps must not be
+     * taken.
+     */
+    protected boolean spendBudget(long steps) {
+        if (partial) {
+            return false;
+        }
+        if ((deadline != 0 && System.nanoTime() - deadline >= 0) || stepsLeft.addAndGet(-steps) < 0) {
+            partial = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the steps taken so far in the current call, or 0 if the budget
+     * has no step limit.
+     */
+    protected long stepsTaken() {
+        return budget.hasStepLimit() ? budget.getStepLimit() - Math.max(0, stepsLeft.get()) : 0;
+    }
+
+    /**
+     * Mark the current call's answer as partial, e.g. when the SAT solver
+     * has timed out.
+     */
+    protected void markPartial() {
+        partial = true;
+    }
+
+    /**
+     * @return the time left in the current call, at least 1 ms, or
+     * {@link Integer#MAX_VALUE} ms if there is no time limit.
+     */
+    protected long millisLeft() {
+        if (deadline == 0) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+    }
+
+    /**
+     * @return what is left of the current call's budget, for handing on to
+     * another solver that does part of the call's work.
+     */
+    protected SolverBudget remainingBudget() {
+        long steps = stepsLeft.get();
+        return new SolverBudget(deadline == 0 ? 0 : millisLeft(),
+                steps == Long.MAX_VALUE ? 0 : Math.max(1, steps));
     }
 
     protected Stream<Cell> cellMatrixToStream() {
@@ -31,13 +131,14 @@ public abstract class AbstractSolver implements Solver {
 
     /**
      * When passed a cell, create a unique identifier (a single integer) for that
-     * cell. To be used for creating literals.
+     * cell. To be used for creating literals. The identifier is the cell's
+     * {@link NeighbourIndex} id plus one, as literals cannot be 0.
      *
      * @param c cell to encode.
      * @return a unique integer identifier for given cell.
      */
     protected int encodeCellId(final Cell c) {
-        return (c.getY() * width + c.getX()) + 1;
+        return neighbourIndex.id(c.getX(), c.getY()) + 1;
     }
 
     /**
@@ -48,28 +149,58 @@ public abstract class AbstractSolver implements Solver {
      * passed id to be a cell.
      */
     public Optional<Cell> decodeCellId(final int id) {
-        final int width = cells.length;
-        final int height = cells[0].length;
         int posId = id < 0 ? id * -1 : id;
-        if (posId > ((height - 1) * width + (width - 1)) + 1) {
+        if (posId < 1 || posId > neighbourIndex.size()) {
             return Optional.empty();
         }
-        int x = (posId - 1) % width;
-        int y = ((posId - 1) - x) / width;
-        return Optional.of(cells[x][y]);
+        return Optional.of(cellAt(posId - 1));
     }
 
-    public List<Cell> getNeighbours(final int x, final int y) {
-        final int width = cells.length;
-        final int height = cells[0].length;
-        List<Cell> neighbours = new ArrayList<>();
-        for (int i = x - 1; i <= x + 1; i++) {
-            for (int j = y - 1; j <= y + 1; j++) {
-                if (i >= 0 && i < width && j >= 0 && j < height && !(i == x && j == y)) {
-                    neighbours.add(cells[i][j]);
-                }
+    /**
+     * @param id cell id as used by {@link NeighbourIndex}.
+     * @return the cell with that id.
+     */
+    protected Cell cellAt(final int id) {
+        return cells[neighbourIndex.x(id)][neighbourIndex.y(id)];
+    }
+
+    /**
+     * Copy the state of every cell into an array indexed by cell id (see
+     * {@link NeighbourIndex}). Open cells hold their number, other cells hold
+     * {@link #SNAPSHOT_CLOSED} or {@link #SNAPSHOT_FLAGGED}.
+     *
+     * @return a snapshot of the board's current state.
+     */
+    protected byte[] snapshotStates() {
+        byte[] states = new byte[width * height];
+        GameView.copyStates(cells, states);
+        return states;
+    }
+
+    protected static boolean isOpen(byte state) {
+        return state < SNAPSHOT_CLOSED;
+    }
+
+    /**
+     * @return how many neighbours of the cell have the given openness in the
+     * snapshot.
+     */
+    protected int countNeighbours(final byte[] states, final int id, final boolean open) {
+        int count = 0;
+        for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+            if (isOpen(states[neighbourIndex.neighbour(i)]) == open) {
+                count++;
             }
         }
+        return count;
+    }
+
+    public List<Cell> getNeighbours(final int x, final int y) {
+        int id = neighbourIndex.id(x, y);
+        List<Cell> neighbours = new ArrayList<>(neighbourIndex.end(id) - neighbourIndex.start(id));
+        for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+            neighbours.add(cellAt(neighbourIndex.neighbour(i)));
+        }
         return neighbours;
     }
 
@@ -90,9 +221,7 @@ public abstract class AbstractSolver implements Solver {
      * @return a list of cells that are classed as land cells.
      */
     public List<Cell> getLandCells() {
-        return cellMatrixToStream()
-                .filter(cell -> cell.getState() == CellState.OPEN)
-                .collect(Collectors.toList());
+        return frontier.getLandCells();
     }
 
     /**
@@ -102,13 +231,7 @@ public abstract class AbstractSolver implements Solver {
      * @return a list of cells that are classed as sea cells.
      */
     public List<Cell> getSeaCells() {
-        return cellMatrixToStream()
-                .filter(cell -> cell.getState() != CellState.OPEN)
-                .filter(cell -> ((int) getNeighbours(cell.getX(), cell.getY()).stream()
-                        .filter(c -> c.getState() == CellState.OPEN)
-                        .limit(1)
-                        .count()) == 0)
-                .collect(Collectors.toList());
+        return frontier.getSeaCells();
     }
 
     /**
@@ -119,16 +242,7 @@ public abstract class AbstractSolver implements Solver {
      * @return a list of cells that are classed as closed shore cells.
      */
     public List<Cell> getClosedShoreCells() {
-        return cellMatrixToStream()
-                .filter(cell -> cell.getState() != CellState.OPEN)
-                .filter(cell -> {
-                    List<Cell> neighbours = getNeighbours(cell.getX(), cell.getY());
-                    return ((int) neighbours.stream()
-                            .filter(c -> c.getState() == CellState.OPEN)
-                            .limit(1)
-                            .count()) != 0;
-                })
-                .collect(Collectors.toList());
+        return frontier.getClosedShoreCells();
     }
 
     /**
@@ -138,27 +252,132 @@ public abstract class AbstractSolver implements Solver {
      * @return a list of cells that are classed as open shore cells.
      */
     public List<Cell> getOpenShoreCells() {
-        return cellMatrixToStream()
-                .filter(cell -> cell.getState() != CellState.OPEN)
-                .filter(cell -> {
-                    List<Cell> neighbours = getNeighbours(cell.getX(), cell.getY());
-                    return ((int) neighbours.stream()
-                            .filter(c -> c.getState() != CellState.OPEN)
-                            .limit(1)
-                            .count()) != 0;
-                })
-                .collect(Collectors.toList());
+        return frontier.getOpenShoreCells();
+    }
+
+    /**
+     * Split the closed shore cells into independent components. Two cells are
+     * in the same component if they are both neighbours of the same open cell
+     * (i.e. they share a constraint), or are linked through a chain of such
+     * cells.
+     *
+     * @return the frontier's components, ordered by their first cell.
+     */
+    public List<FrontierComponent> getShoreComponents() {
+        return shoreComponents(getClosedShoreCells(), getOpenShoreCells(),
+                id -> cellAt(id).getState() != CellState.OPEN, Cell::getNumber);
+    }
+
+    /**
+     * Split the closed shore cells of a snapshot (see {@link #snapshotStates()})
+     * into independent components, as {@link #getShoreComponents()} does for
+     * the board. The snapshot need not be of the board's current state, e.g.
+     * it can have cells opened with numbers they might turn out to have.
+     *
+     * @param seaCells list to which the snapshot's sea cells are added.
+     * @return the snapshot's components, ordered by their first cell.
+     */
+    protected List<FrontierComponent> getShoreComponents(final byte[] states, final List<Cell> seaCells) {
+        List<Cell> shoreCells = new ArrayList<>();
+        List<Cell> openShoreCells = new ArrayList<>();
+        for (int id = 0; id < states.length; id++) {
+            int open = countNeighbours(states, id, true);
+            if (isOpen(states[id])) {
+                if (open < neighbourIndex.end(id) - neighbourIndex.start(id)) {
+                    openShoreCells.add(cellAt(id));
+                }
+            } else if (open > 0) {
+                shoreCells.add(cellAt(id));
+            } else {
+                seaCells.add(cellAt(id));
+            }
+        }
+        return shoreComponents(shoreCells, openShoreCells, id -> !isOpen(states[id]),
+                cell -> states[neighbourIndex.id(cell.getX(), cell.getY())]);
+    }
+
+    /**
+     * @param isClosed whether the cell with the given id is closed.
+     * @param number the number of an open shore cell.
+     */
+    private List<FrontierComponent> shoreComponents(List<Cell> shoreCells, List<Cell> openShoreCells,
+                                                    IntPredicate isClosed, ToIntFunction<Cell> number) {
+        int[] shoreIndex = new int[width * height];
+        for (int i = 0; i < shoreCells.size(); i++) {
+            Cell cell = shoreCells.get(i);
+            shoreIndex[neighbourIndex.id(cell.getX(), cell.getY())] = i;
+        }
+
+        // Union-find over the shore cells, joining cells of each open cell
+        int[] parent = new int[shoreCells.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        List<Cell> constraintCells = new ArrayList<>();
+        List<int[]> constraints = new ArrayList<>();
+        for (Cell cell : openShoreCells) {
+            int id = neighbourIndex.id(cell.getX(), cell.getY());
+            int[] closed = new int[neighbourIndex.end(id) - neighbourIndex.start(id)];
+            int size = 0;
+            for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+                int neighbour = neighbourIndex.neighbour(i);
+                if (isClosed.test(neighbour)) {
+                    closed[size++] = shoreIndex[neighbour];
+                }
+            }
+            closed = Arrays.copyOf(closed, size);
+            constraintCells.add(cell);
+            constraints.add(closed);
+            for (int i = 1; i < closed.length; i++) {
+                parent[findRoot(parent, closed[i])] = findRoot(parent, closed[0]);
+            }
+        }
+
+        // Group the cells by their root, keeping the shore cell ordering
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        int[] localIndex = new int[shoreCells.size()];
+        for (int i = 0; i < shoreCells.size(); i++) {
+            List<Integer> group = groups.computeIfAbsent(findRoot(parent, i), k -> new ArrayList<>());
+            localIndex[i] = group.size();
+            group.add(i);
+        }
+        Map<Integer, List<Cell>> groupConstraintCells = new HashMap<>();
+        Map<Integer, List<int[]>> groupConstraints = new HashMap<>();
+        for (int i = 0; i < constraints.size(); i++) {
+            int[] closed = constraints.get(i);
+            int root = findRoot(parent, closed[0]);
+            int[] local = Arrays.stream(closed).map(j -> localIndex[j]).toArray();
+            groupConstraintCells.computeIfAbsent(root, k -> new ArrayList<>()).add(constraintCells.get(i));
+            groupConstraints.computeIfAbsent(root, k -> new ArrayList<>()).add(local);
+        }
+
+        List<FrontierComponent> components = new ArrayList<>();
+        for (var pair : groups.entrySet()) {
+            int root = pair.getKey();
+            List<Cell> cells = pair.getValue().stream()
+                    .map(shoreCells::get)
+                    .collect(Collectors.toList());
+            List<Cell> openCells = groupConstraintCells.get(root);
+            int[][] local = groupConstraints.get(root).toArray(new int[0][]);
+            int[] values = openCells.stream().mapToInt(number).toArray();
+            components.add(new FrontierComponent(cells, openCells, local, values));
+        }
+        return components;
+    }
+
+    private static int findRoot(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
     }
 
     public int calcFlaggedNeighbours(final int x, final int y) {
-        return (int) getNeighbours(x, y).stream()
-                .filter(cell -> cell.getState() == CellState.FLAGGED)
-                .count();
+        return frontier.getFlaggedNeighbours(x, y);
     }
 
     public int calcClosedNeighbours(final int x, final int y) {
-        return (int) getNeighbours(x, y).stream()
-                .filter(cell -> cell.getState() != CellState.OPEN)
-                .count();
+        return frontier.getClosedNeighbours(x, y);
     }
-}
\ No newline at end of file
+}
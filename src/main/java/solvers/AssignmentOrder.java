@@ -0,0 +1,134 @@
+package main.java.solvers;
+
+import java.util.*;
+
+/**
+ * The order in which the cells of a {@link FrontierComponent} are assigned
+ * when its models are counted or sampled one cell at a time, and what each
+ * assignment has to check.
+ * <p>
+ * Cells are ordered breadth first through their shared constraints, so that
+ * few constraints are partially assigned at once. The number of mines each
+ * constraint still needs is its residual; assigning a value to the cell at
+ * a position lowers the residuals of the cell's constraints, and the value is
+ * only possible if every residual stays between 0 and the number of the
+ * constraint's cells assigned after it.
+ */
+final class AssignmentOrder {
+
+    private final int[] order;
+    // For each position: the constraints of the cell there and how many of
+    // each constraint's cells are assigned after it
+    private final int[][] cellConstraints;
+    private final int[][] cellsAfter;
+
+    AssignmentOrder(FrontierComponent component) {
+        int n = component.size();
+        this.order = breadthFirstOrder(component);
+        this.cellConstraints = new int[n][];
+        this.cellsAfter = new int[n][];
+
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[order[i]] = i;
+        }
+        List<List<Integer>> constraintsOfCell = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            constraintsOfCell.add(new ArrayList<>());
+        }
+        for (int c = 0; c < component.getConstraintCount(); c++) {
+            for (int cell : component.getConstraint(c)) {
+                constraintsOfCell.get(cell).add(c);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            List<Integer> constraints = constraintsOfCell.get(order[i]);
+            cellConstraints[i] = constraints.stream().mapToInt(c -> c).toArray();
+            cellsAfter[i] = new int[cellConstraints[i].length];
+            for (int t = 0; t < cellConstraints[i].length; t++) {
+                int after = 0;
+                for (int cell : component.getConstraint(cellConstraints[i][t])) {
+                    if (position[cell] > i) {
+                        after++;
+                    }
+                }
+                cellsAfter[i][t] = after;
+            }
+        }
+    }
+
+    /**
+     * @return the number of cells.
+     */
+    int size() {
+        return order.length;
+    }
+
+    /**
+     * @return the index within the component of the cell at the position.
+     */
+    int cell(int position) {
+        return order[position];
+    }
+
+    /**
+     * @return whether the cell at the position can take the value (0 or 1)
+     * given the residuals before it.
+     */
+    boolean allows(int position, byte[] residuals, int value) {
+        int[] constraints = cellConstraints[position];
+        for (int t = 0; t < constraints.length; t++) {
+            int residual = residuals[constraints[t]] - value;
+            if (residual < 0 || residual > cellsAfter[position][t]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower the residuals of the constraints of the cell at the position by
+     * the value, which must be allowed.
+     */
+    void assign(int position, byte[] residuals, int value) {
+        for (int constraint : cellConstraints[position]) {
+            residuals[constraint] -= value;
+        }
+    }
+
+    private static int[] breadthFirstOrder(FrontierComponent component) {
+        int n = component.size();
+        List<Set<Integer>> linked = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            linked.add(new TreeSet<>());
+        }
+        for (int c = 0; c < component.getConstraintCount(); c++) {
+            for (int a : component.getConstraint(c)) {
+                for (int b : component.getConstraint(c)) {
+                    linked.get(a).add(b);
+                }
+            }
+        }
+
+        int[] order = new int[n];
+        boolean[] seen = new boolean[n];
+        int head = 0;
+        int tail = 0;
+        for (int start = 0; start < n; start++) {
+            if (seen[start]) {
+                continue;
+            }
+            seen[start] = true;
+            order[tail++] = start;
+            while (head < tail) {
+                for (int next : linked.get(order[head++])) {
+                    if (!seen[next]) {
+                        seen[next] = true;
+                        order[tail++] = next;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,16 @@
+package main.java.solvers;
+
+/**
+ * Thrown out of work that cannot be used unless it is finished, such as
+ * counting a component's models, when the solver's budget runs out part way
+ * through. It never leaves the solver that threw it.
+ */
+class BudgetExhaustedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    BudgetExhaustedException() {
+        // Thrown to unwind, so the stack trace is never needed
+        super(null, null, false, false);
+    }
+}
@@ -0,0 +1,98 @@
+package main.java.solvers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A bounded least recently used cache of results worked out for frontier
+ * components, keyed by {@link ComponentSignature}. The same component shapes
+ * come up again and again, both while a game goes on (components away from
+ * the last move do not change) and across games (walls such as 1-2-1), so a
+ * shared cache lets solvers skip solving them again.
+ * <p>
+ * Cached values are shared between solvers and must not be modified.
+ *
+ * @param <V> the result cached for each component.
+ */
+public class ComponentCache<V> {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    // Guarded by this
+    private final Map<ComponentSignature, V> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public ComponentCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ComponentSignature, V> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * @param compute works the result out on a miss. Called without holding
+     *                the cache's lock, so solvers in other threads are not
+     *                held up while it runs.
+     * @return the cached result for the component, computing it if need be.
+     */
+    public V get(FrontierComponent component, Supplier<V> compute) {
+        return get(component, compute, value -> true);
+    }
+
+    /**
+     * @param keep whether a computed result may be cached, e.g. false for a
+     *             result cut short by a solver's budget.
+     * @return the cached result for the component, computing it if need be.
+     */
+    public V get(FrontierComponent component, Supplier<V> compute, Predicate<V> keep) {
+        ComponentSignature signature = component.getSignature();
+        V value;
+        synchronized (this) {
+            value = entries.get(signature);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = compute.get();
+        if (keep.test(value)) {
+            synchronized (this) {
+                entries.put(signature, value);
+            }
+        }
+        return value;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,78 @@
+package main.java.solvers;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The models of a single {@link FrontierComponent}, counted by the number of
+ * mines they place in the component.
+ */
+public class ComponentModelCounts {
+
+    private final BigInteger[] models;
+    private final BigInteger[][] cellMines;
+
+    /**
+     * @param size number of cells in the component.
+     */
+    public ComponentModelCounts(int size) {
+        models = new BigInteger[size + 1];
+        cellMines = new BigInteger[size][size + 1];
+        Arrays.fill(models, BigInteger.ZERO);
+        for (BigInteger[] counts : cellMines) {
+            Arrays.fill(counts, BigInteger.ZERO);
+        }
+    }
+
+    /**
+     * Record a model of the component.
+     *
+     * @param mineCells indices of the cells that are mines in the model.
+     */
+    public void addModel(int[] mineCells) {
+        addModel(mineCells, mineCells.length, BigInteger.ONE);
+    }
+
+    /**
+     * Record a model of the component as if it had been found a number of
+     * times, e.g. a sampled model weighted by how unlikely it was to be drawn.
+     *
+     * @param mineCells indices of the cells that are mines in the model, in
+     *                  the first k elements.
+     * @param k         number of mines in the model.
+     */
+    public void addModel(int[] mineCells, int k, BigInteger weight) {
+        models[k] = models[k].add(weight);
+        for (int i = 0; i < k; i++) {
+            int cell = mineCells[i];
+            cellMines[cell][k] = cellMines[cell][k].add(weight);
+        }
+    }
+
+    public int getMaxMines() {
+        return models.length - 1;
+    }
+
+    /**
+     * @return the number of models with exactly k mines.
+     */
+    public BigInteger getModels(int k) {
+        return models[k];
+    }
+
+    public void setModels(int k, BigInteger count) {
+        models[k] = count;
+    }
+
+    /**
+     * @return the number of models with exactly k mines in which the cell is a
+     * mine.
+     */
+    public BigInteger getCellMines(int cell, int k) {
+        return cellMines[cell][k];
+    }
+
+    public void setCellMines(int cell, int k, BigInteger count) {
+        cellMines[cell][k] = count;
+    }
+}
@@ -0,0 +1,76 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A key identifying a {@link FrontierComponent} by its shape rather than its
+ * place on the board: the layout of its cells relative to the top left of
+ * their bounding box, followed by each constraint's cells and value. Two
+ * components with equal signatures have the same constraints up to
+ * translation, so anything derived from one component's constraints alone
+ * holds for the other, in this game or any other.
+ * <p>
+ * Flags are not part of the signature: the solvers treat flagged cells as
+ * unknown, so flags never change what a component's constraints imply.
+ */
+public final class ComponentSignature {
+
+    private final int[] key;
+    private final int hash;
+
+    private ComponentSignature(int[] key) {
+        this.key = key;
+        this.hash = Arrays.hashCode(key);
+    }
+
+    /**
+     * Components list their cells and constraints in board order, which does
+     * not change under translation, so no further sorting is needed.
+     */
+    static ComponentSignature of(FrontierComponent component) {
+        List<Cell> cells = component.getCells();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int length = 2 + 2 * cells.size();
+        for (Cell cell : cells) {
+            minX = Math.min(minX, cell.getX());
+            minY = Math.min(minY, cell.getY());
+        }
+        for (int i = 0; i < component.getConstraintCount(); i++) {
+            length += 2 + component.getConstraint(i).length;
+        }
+
+        int[] key = new int[length];
+        int k = 0;
+        key[k++] = cells.size();
+        key[k++] = component.getConstraintCount();
+        for (Cell cell : cells) {
+            key[k++] = cell.getX() - minX;
+            key[k++] = cell.getY() - minY;
+        }
+        for (int i = 0; i < component.getConstraintCount(); i++) {
+            int[] constraint = component.getConstraint(i);
+            key[k++] = constraint.length;
+            for (int cell : constraint) {
+                key[k++] = cell;
+            }
+            key[k++] = component.getValue(i);
+        }
+        return new ComponentSignature(key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(key, ((ComponentSignature) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An independent part of the frontier. Holds a set of closed shore cells and
+ * every open cell constraint that touches them. No constraint outside of the
+ * component mentions any of its cells, so a component can be solved (or have
+ * its models counted) on its own.
+ */
+public class FrontierComponent {
+
+    private final List<Cell> cells;
+    private final List<Cell> constraintCells;
+    private final int[][] constraints;
+    private final int[] values;
+    private volatile ComponentSignature signature;
+
+    /**
+     * @param cells           closed shore cells of the component.
+     * @param constraintCells open cells whose closed neighbours are all in
+     *                        {@code cells}.
+     * @param constraints     for each open cell, the indices (into
+     *                        {@code cells}) of its closed neighbours.
+     * @param values          for each open cell, the number of mines among its
+     *                        closed neighbours.
+     */
+    public FrontierComponent(List<Cell> cells, List<Cell> constraintCells, int[][] constraints, int[] values) {
+        this.cells = Collections.unmodifiableList(cells);
+        this.constraintCells = Collections.unmodifiableList(constraintCells);
+        this.constraints = constraints;
+        this.values = values;
+    }
+
+    public List<Cell> getCells() {
+        return cells;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    public List<Cell> getConstraintCells() {
+        return constraintCells;
+    }
+
+    public int getConstraintCount() {
+        return constraints.length;
+    }
+
+    /**
+     * @param i index of the constraint.
+     * @return indices into {@link #getCells()} of the cells in the constraint.
+     */
+    public int[] getConstraint(int i) {
+        return constraints[i];
+    }
+
+    /**
+     * @param i index of the constraint.
+     * @return the number of mines the constraint's cells must contain.
+     */
+    public int getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * @return the component's translation-invariant signature, worked out
+     * the first time it is asked for.
+     */
+    public ComponentSignature getSignature() {
+        if (signature == null) {
+            signature = ComponentSignature.of(this);
+        }
+        return signature;
+    }
+}
@@ -0,0 +1,276 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.*;
+
+/**
+ * A solver that treats the frontier as a linear system over 0/1 variables and
+ * row-reduces it. Each open shore cell gives the equation that its closed
+ * neighbours add up to its number, and the board's mine count gives one more
+ * equation over every closed shore cell and the sea. The sea is one column
+ * whose variable counts the mines in it (between 0 and the size of the sea),
+ * since the open cells say nothing that tells sea cells apart.
+ * <p>
+ * The system is brought to reduced row echelon form with integer, fraction
+ * free elimination, each row divided through by the gcd of its entries. Every
+ * reduced row is then checked against the bounds of its variables: if a cell
+ * taking a value would leave the rest of the row unable to reach the row's
+ * value, the cell takes the other value. Settled cells are put back into every
+ * row and the checks repeat until nothing changes.
+ * <p>
+ * As in {@link MyPBSolver}, flagged cells are not trusted and are solved for
+ * like any other closed cell.
+ */
+public class GaussianSolver extends AbstractSolver {
+
+    public GaussianSolver(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+    }
+
+    public Map<Cell, Boolean> getKnownCells() {
+        return reduce().getKnownCells();
+    }
+
+    /**
+     * Build the frontier's system, reduce it and settle every cell the reduced
+     * rows allow.
+     *
+     * @return the settled cells and the rows left over them. If the board is
+     * contradictory (e.g. a mine has been opened) the system is empty.
+     */
+    public ReducedSystem reduce() {
+        List<Cell> variables = new ArrayList<>();
+        List<int[]> constraints = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        for (FrontierComponent component : getShoreComponents()) {
+            int offset = variables.size();
+            variables.addAll(component.getCells());
+            for (int i = 0; i < component.getConstraintCount(); i++) {
+                constraints.add(Arrays.stream(component.getConstraint(i)).map(j -> j + offset).toArray());
+                values.add(component.getValue(i));
+            }
+        }
+        List<Cell> seaCells = getSeaCells();
+        int sea = variables.size();
+        int columns = sea + 1;
+        int stride = columns + 1;
+        int rowCount = constraints.size() + 1;
+
+        long[] rows = new long[rowCount * stride];
+        for (int i = 0; i < constraints.size(); i++) {
+            for (int j : constraints.get(i)) {
+                rows[i * stride + j] = 1;
+            }
+            rows[i * stride + columns] = values.get(i);
+        }
+        // The board's mine count
+        int last = constraints.size() * stride;
+        Arrays.fill(rows, last, last + sea, 1);
+        rows[last + sea] = seaCells.isEmpty() ? 0 : 1;
+        rows[last + columns] = mines;
+
+        long[] upper = new long[columns];
+        Arrays.fill(upper, 1);
+        upper[sea] = seaCells.size();
+
+        eliminate(rows, rowCount, columns);
+        long[] settled = new long[columns];
+        Arrays.fill(settled, -1);
+        if (!propagate(rows, rowCount, columns, upper, settled)) {
+            return new ReducedSystem(new ArrayList<>(), new ArrayList<>(), 0, new long[0], new HashMap<>());
+        }
+
+        Map<Cell, Boolean> known = new HashMap<>();
+        List<Cell> remaining = new ArrayList<>();
+        int[] remainingColumns = new int[columns];
+        for (int j = 0; j < sea; j++) {
+            if (settled[j] >= 0) {
+                known.put(variables.get(j), settled[j] == 1);
+            } else {
+                remainingColumns[remaining.size()] = j;
+                remaining.add(variables.get(j));
+            }
+        }
+        // The sea only settles its cells if it is all mines or all safe
+        boolean seaSettled = settled[sea] == 0 || settled[sea] == upper[sea];
+        List<Cell> remainingSea = new ArrayList<>();
+        if (seaSettled) {
+            for (Cell cell : seaCells) {
+                known.put(cell, settled[sea] != 0);
+            }
+        } else if (!seaCells.isEmpty()) {
+            remainingColumns[remaining.size()] = sea;
+            remainingSea = seaCells;
+        }
+
+        // Put the settled cells back into the rows and keep the ones left open
+        int reducedColumns = remaining.size() + (remainingSea.isEmpty() ? 0 : 1);
+        int reducedStride = reducedColumns + 1;
+        long[] reduced = new long[rowCount * reducedStride];
+        int reducedCount = 0;
+        for (int r = 0; r < rowCount; r++) {
+            int q = r * stride;
+            int p = reducedCount * reducedStride;
+            long value = rows[q + columns];
+            for (int j = 0; j < columns; j++) {
+                if (settled[j] >= 0 && (j != sea || seaSettled)) {
+                    value -= rows[q + j] * settled[j];
+                }
+            }
+            boolean open = false;
+            for (int k = 0; k < reducedColumns; k++) {
+                reduced[p + k] = rows[q + remainingColumns[k]];
+                open |= reduced[p + k] != 0;
+            }
+            if (open) {
+                reduced[p + reducedColumns] = value;
+                normalise(reduced, p, reducedStride);
+                reducedCount++;
+            }
+        }
+        return new ReducedSystem(remaining, remainingSea, reducedCount,
+                Arrays.copyOf(reduced, reducedCount * reducedStride), known);
+    }
+
+    /**
+     * Gauss-Jordan elimination in place. To clear a column from another row
+     * both rows are scaled rather than divided, so every entry stays an
+     * integer.
+     */
+    private static void eliminate(long[] rows, int rowCount, int columns) {
+        int stride = columns + 1;
+        long[] scratch = new long[stride];
+        int pivotRow = 0;
+        try {
+            for (int step = 0; step < columns && pivotRow < rowCount; step++) {
+                // The sea (the last column) goes first, so only the mine count
+                // row keeps it and the frontier rows stay as sparse as they were
+                int column = (step + columns - 1) % columns;
+                int found = pivotRow;
+                while (found < rowCount && rows[found * stride + column] == 0) {
+                    found++;
+                }
+                if (found == rowCount) {
+                    continue;
+                }
+                int p = pivotRow * stride;
+                if (found != pivotRow) {
+                    int f = found * stride;
+                    System.arraycopy(rows, p, scratch, 0, stride);
+                    System.arraycopy(rows, f, rows, p, stride);
+                    System.arraycopy(scratch, 0, rows, f, stride);
+                }
+                long pivot = rows[p + column];
+                for (int r = 0; r < rowCount; r++) {
+                    int q = r * stride;
+                    long factor = rows[q + column];
+                    if (r == pivotRow || factor == 0) {
+                        continue;
+                    }
+                    // Worked out aside so an overflow leaves the row as it was
+                    for (int k = 0; k < stride; k++) {
+                        scratch[k] = Math.subtractExact(Math.multiplyExact(rows[q + k], pivot),
+                                Math.multiplyExact(rows[p + k], factor));
+                    }
+                    System.arraycopy(scratch, 0, rows, q, stride);
+                    normalise(rows, q, stride);
+                }
+                pivotRow++;
+            }
+        } catch (ArithmeticException e) {
+            // Every row is still a combination of the original rows, so
+            // stopping here only loses deductions
+        }
+    }
+
+    /**
+     * Divide the entries of a row by their greatest common divisor.
+     */
+    private static void normalise(long[] rows, int from, int length) {
+        long gcd = 0;
+        for (int k = from; k < from + length && gcd != 1; k++) {
+            long a = Math.abs(rows[k]);
+            long b = gcd;
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            gcd = a;
+        }
+        if (gcd > 1) {
+            for (int k = from; k < from + length; k++) {
+                rows[k] /= gcd;
+            }
+        }
+    }
+
+    /**
+     * Settle every variable that can only take one value given the bounds of
+     * the other variables in one of its rows, until nothing changes.
+     *
+     * @param upper   the largest value of each variable.
+     * @param settled filled in with the value of each settled variable, -1
+     *                for the rest.
+     * @return false if some row cannot be met.
+     */
+    private static boolean propagate(long[] rows, int rowCount, int columns, long[] upper, long[] settled) {
+        int stride = columns + 1;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < rowCount; r++) {
+                int q = r * stride;
+                long value = rows[q + columns];
+                long min = 0;
+                long max = 0;
+                boolean open = false;
+                for (int j = 0; j < columns; j++) {
+                    long c = rows[q + j];
+                    if (c == 0) {
+                        continue;
+                    }
+                    if (settled[j] >= 0) {
+                        value -= c * settled[j];
+                    } else {
+                        open = true;
+                        min += Math.min(0, c * upper[j]);
+                        max += Math.max(0, c * upper[j]);
+                    }
+                }
+                if (!open) {
+                    if (value != 0) {
+                        return false;
+                    }
+                    continue;
+                }
+                for (int j = 0; j < columns; j++) {
+                    long c = rows[q + j];
+                    if (c == 0 || settled[j] >= 0) {
+                        continue;
+                    }
+                    // c times the variable must lie in [low, high]
+                    long low = value - (max - Math.max(0, c * upper[j]));
+                    long high = value - (min - Math.min(0, c * upper[j]));
+                    long least = Math.max(0, c > 0 ? ceilDiv(low, c) : ceilDiv(high, c));
+                    long most = Math.min(upper[j], c > 0 ? Math.floorDiv(high, c) : Math.floorDiv(low, c));
+                    if (least > most) {
+                        return false;
+                    }
+                    if (least == most) {
+                        settled[j] = least;
+                        changed = true;
+                        // The row's bounds have changed
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
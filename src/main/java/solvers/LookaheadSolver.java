@@ -0,0 +1,351 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A probability solver that picks its guess by looking at what each
+ * candidate guess might reveal, rather than only at how likely it is to be a
+ * mine.
+ * <p>
+ * Opening a safe cell reveals its number, so each candidate leads to one
+ * position per number it might show. The chance of each of those positions
+ * is the number of models of the board in which the cell is safe and shows
+ * that number, over the number of models of the current board. Each position
+ * is solved as the current board is, reusing the model counts of every
+ * component the reveal leaves untouched, and is valued by the objective:
+ * <ul>
+ * <li>{@link Objective#WIN_PROBABILITY}: the chance of surviving the guess
+ * and then the best guess (or certain move) after it, i.e. the chance of
+ * getting through the next {@link #getPlies()} + 1 guesses.</li>
+ * <li>{@link Objective#INFORMATION_GAIN}: the expected number of bits
+ * revealed by the guess, and the guesses after it, over a game that ends
+ * when a mine is opened.</li>
+ * </ul>
+ * A position with a cell certain to be safe ends the search, as the next move
+ * is then a certain one rather than a guess. Only the {@link #getCandidates()}
+ * cells least likely to be mines are considered at each ply, preferring cells
+ * with fewer closed neighbours, as {@link #getBestCell()} of
+ * {@link ProbabilitySolver} does, and at most {@link #SEA_CANDIDATES} of them
+ * sea cells, which are otherwise all alike.
+ * <p>
+ * The positions reached are remembered for the rest of the call, since
+ * different orders of guesses reach the same position, and the candidates
+ * are evaluated in parallel if there are several threads. Each position
+ * solved is one step of the budget, besides the steps spent counting its
+ * components' models. If the budget runs out, the best of the candidates
+ * evaluated in full is picked, or the safest candidate if there are none, or
+ * if the current board could not be solved, the safest cell going by the
+ * components counted before the budget ran out.
+ */
+public class LookaheadSolver extends ModelCountingSolver {
+
+    public enum Objective {
+        WIN_PROBABILITY,
+        INFORMATION_GAIN
+    }
+
+    public static final int DEFAULT_PLIES = 1;
+    public static final int DEFAULT_CANDIDATES = 8;
+    public static final int SEA_CANDIDATES = 2;
+
+    private Objective objective;
+    private int plies;
+    private int candidates;
+    private int searchThreads;
+    // Positions solved in the current call
+    private Map<Position, Evaluation> positions;
+
+    public LookaheadSolver(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+        this.objective = Objective.WIN_PROBABILITY;
+        this.plies = DEFAULT_PLIES;
+        this.candidates = DEFAULT_CANDIDATES;
+        this.searchThreads = 1;
+        // Every position is compared through doubles anyway
+        setFastArithmetic(true);
+    }
+
+    public Objective getObjective() {
+        return objective;
+    }
+
+    public void setObjective(Objective objective) {
+        this.objective = Objects.requireNonNull(objective);
+    }
+
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * @param plies number of guesses looked past, at least 1. Each ply
+     *              multiplies the number of positions solved by up to
+     *              {@link #getCandidates()} times 9.
+     */
+    public void setPlies(int plies) {
+        if (plies < 1) {
+            throw new IllegalArgumentException("plies must be at least 1");
+        }
+        this.plies = plies;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @param candidates number of guesses considered at each ply.
+     */
+    public void setCandidates(int candidates) {
+        if (candidates < 1) {
+            throw new IllegalArgumentException("candidates must be at least 1");
+        }
+        this.candidates = candidates;
+    }
+
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    /**
+     * @param searchThreads number of threads the candidates are evaluated
+     *                      on, 1 to evaluate them on the calling thread.
+     */
+    public void setSearchThreads(int searchThreads) {
+        if (searchThreads < 1) {
+            throw new IllegalArgumentException("searchThreads must be at least 1");
+        }
+        this.searchThreads = searchThreads;
+    }
+
+    /**
+     * @return the closed cell with the best value under the objective, a
+     * cell certain to be safe if there is one, or null if there are no
+     * probabilities (e.g. the board is contradictory). If the budget runs out
+     * before the current board is solved, the cell least likely to be a mine
+     * going by the components counted (or cached) so far.
+     */
+    @Override
+    public Cell getBestCell() {
+        startBudget();
+        positions = new ConcurrentHashMap<>();
+        try {
+            byte[] root = snapshotStates();
+            Evaluation evaluation;
+            try {
+                evaluation = evaluate(root);
+            } catch (BudgetExhaustedException e) {
+                // Guess as ProbabilitySolver would from what could be counted
+                return getBestCell(getApproximateProbabilitiesWithinBudget());
+            }
+            if (evaluation == null) {
+                return null;
+            }
+            List<Integer> moves = candidates(root, evaluation);
+            if (moves.isEmpty()) {
+                return null;
+            }
+            if (moves.size() == 1 || evaluation.isFinal()) {
+                return cellAt(moves.get(0));
+            }
+
+            List<Callable<Double>> tasks = new ArrayList<>();
+            for (int move : moves) {
+                tasks.add(() -> {
+                    try {
+                        return score(root, evaluation, move, plies);
+                    } catch (BudgetExhaustedException e) {
+                        return Double.NaN;
+                    }
+                });
+            }
+            List<Double> scores = runAll(getPool(searchThreads), tasks);
+
+            // Ties go to the safer candidate
+            int best = moves.get(0);
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < moves.size(); i++) {
+                // Moves cut short have no score (null if interrupted, NaN if
+                // out of budget) and never beat one that has
+                Double score = scores.get(i);
+                if (score != null && score > bestScore + FAST_TOLERANCE) {
+                    best = moves.get(i);
+                    bestScore = score;
+                }
+            }
+            return cellAt(best);
+        } finally {
+            positions = null;
+        }
+    }
+
+    /**
+     * @return the value of the position under the objective, looking the
+     * given number of plies ahead.
+     */
+    private double value(byte[] states, Evaluation evaluation, int plies) {
+        if (evaluation.isFinal()) {
+            return objective == Objective.WIN_PROBABILITY ? 1 : 0;
+        }
+        if (plies == 0) {
+            return objective == Objective.WIN_PROBABILITY ? 1 - evaluation.lowest : 0;
+        }
+        double best = Double.NEGATIVE_INFINITY;
+        for (int move : candidates(states, evaluation)) {
+            best = Math.max(best, score(states, evaluation, move, plies));
+        }
+        return best;
+    }
+
+    /**
+     * @return the value of guessing the cell with the given id, summed over
+     * the numbers it might show, each weighted by its chance.
+     */
+    private double score(byte[] states, Evaluation evaluation, int move, int plies) {
+        double safe = 1 - evaluation.probabilities[move];
+        double score = 0;
+        int closed = countNeighbours(states, move, false);
+        for (int number = 0; number <= closed; number++) {
+            byte[] next = states.clone();
+            next[move] = (byte) number;
+            Evaluation reveal = evaluate(next);
+            if (reveal == null) {
+                continue;
+            }
+            double chance = Math.exp(reveal.logModels - evaluation.logModels);
+            double gain = objective == Objective.INFORMATION_GAIN ? -Math.log(chance / safe) / Math.log(2) : 0;
+            score += chance * (gain + value(next, reveal, plies - 1));
+        }
+        return score;
+    }
+
+    /**
+     * @return the ids of the closed cells worth guessing, safest first.
+     */
+    private List<Integer> candidates(byte[] states, Evaluation evaluation) {
+        List<Integer> closed = new ArrayList<>();
+        for (int id = 0; id < states.length; id++) {
+            if (states[id] == SNAPSHOT_CLOSED && evaluation.probabilities[id] < 1 - FAST_TOLERANCE) {
+                closed.add(id);
+            }
+        }
+        int[] closedNeighbours = new int[states.length];
+        for (int id : closed) {
+            closedNeighbours[id] = countNeighbours(states, id, false);
+        }
+        // Probabilities within the tolerance of each other are treated as
+        // equal, so they are compared after rounding
+        closed.sort(Comparator.<Integer>comparingLong(id -> Math.round(evaluation.probabilities[id] / FAST_TOLERANCE))
+                .thenComparingInt(id -> closedNeighbours[id]));
+
+        List<Integer> moves = new ArrayList<>();
+        int seaMoves = 0;
+        for (int id : closed) {
+            if (moves.size() == candidates) {
+                break;
+            }
+            if (countNeighbours(states, id, true) == 0) {
+                if (seaMoves == SEA_CANDIDATES) {
+                    continue;
+                }
+                seaMoves++;
+            }
+            moves.add(id);
+        }
+        return moves;
+    }
+
+    /**
+     * Solve a position, or look it up if it has been solved before.
+     *
+     * @return the position's models and probabilities, or null if it has no
+     * models.
+     * @throws BudgetExhaustedException if the budget runs out first.
+     */
+    private Evaluation evaluate(byte[] states) {
+        Position position = new Position(states);
+        Evaluation evaluation = positions.get(position);
+        if (evaluation != null) {
+            return evaluation.logModels == Double.NEGATIVE_INFINITY ? null : evaluation;
+        }
+        if (!spendBudget(1)) {
+            throw new BudgetExhaustedException();
+        }
+        List<Cell> seaCells = new ArrayList<>();
+        List<FrontierComponent> components = getShoreComponents(states, seaCells);
+        List<ComponentModelCounts> counts = new ArrayList<>();
+        for (FrontierComponent component : components) {
+            counts.add(getModelCounts(component));
+        }
+        double logModels = logModels(counts, seaCells.size());
+        double[] probabilities = new double[states.length];
+        Arrays.fill(probabilities, 1);
+        if (logModels != Double.NEGATIVE_INFINITY) {
+            getApproximateProbabilities(components, counts, seaCells).forEach((cell, p) ->
+                    probabilities[neighbourIndex.id(cell.getX(), cell.getY())] = p);
+        }
+        evaluation = new Evaluation(logModels, probabilities, states);
+        positions.put(position, evaluation);
+        return logModels == Double.NEGATIVE_INFINITY ? null : evaluation;
+    }
+
+    /**
+     * A position's number of models and the probability of each of its
+     * closed cells being a mine (1 for open cells).
+     */
+    private static final class Evaluation {
+        private final double logModels;
+        private final double[] probabilities;
+        // The lowest probability of a closed cell that is not flagged
+        private final double lowest;
+
+        private Evaluation(double logModels, double[] probabilities, byte[] states) {
+            this.logModels = logModels;
+            this.probabilities = probabilities;
+            double lowest = 1;
+            for (int id = 0; id < states.length; id++) {
+                if (states[id] == SNAPSHOT_CLOSED) {
+                    lowest = Math.min(lowest, probabilities[id]);
+                }
+            }
+            this.lowest = lowest;
+        }
+
+        /**
+         * @return whether the next move needs no guess: a cell is certain
+         * to be safe, or every closed cell is certain to be a mine.
+         */
+        private boolean isFinal() {
+            return lowest < FAST_TOLERANCE || lowest > 1 - FAST_TOLERANCE;
+        }
+    }
+
+    /**
+     * A snapshot of the board used as a key, hashed once.
+     */
+    private static final class Position {
+        private final byte[] states;
+        private final int hash;
+
+        private Position(byte[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(states, ((Position) o).states);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
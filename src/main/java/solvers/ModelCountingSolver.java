@@ -0,0 +1,171 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * A probability solver that counts the models of each frontier component
+ * directly rather than enumerating them one at a time with a SAT solver.
+ * <p>
+ * The cells of a component are assigned in a fixed order. After each cell the
+ * only thing that matters for the rest of the assignment is how many mines
+ * each constraint still needs (its residual), so partial assignments that
+ * reach the same residuals are merged and counted together. A forward pass
+ * counts the ways of reaching each residual state and a backward pass counts
+ * the ways of completing it; combining the two gives the per-cell mine counts.
+ * No clauses are ever added, so the cost depends on the number of distinct
+ * residual states rather than the number of models.
+ * <p>
+ * Each residual state reached in the forward pass is one step of the budget.
+ */
+public class ModelCountingSolver extends ProbabilitySolver {
+
+    public ModelCountingSolver(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+    }
+
+    @Override
+    protected ComponentModelCounts countModels(FrontierComponent component) {
+        int n = component.size();
+        AssignmentOrder order = new AssignmentOrder(component);
+
+        // Forward pass: layers.get(i) maps each residual state before the ith
+        // cell to the number of partial assignments reaching it, by mine count
+        List<Map<Residuals, BigInteger[]>> layers = new ArrayList<>();
+        byte[] initial = new byte[component.getConstraintCount()];
+        for (int c = 0; c < initial.length; c++) {
+            initial[c] = (byte) component.getValue(c);
+        }
+        Map<Residuals, BigInteger[]> layer = new HashMap<>();
+        layer.put(new Residuals(initial), new BigInteger[]{BigInteger.ONE});
+        layers.add(layer);
+        for (int i = 0; i < n; i++) {
+            if (!spendBudget(layer.size())) {
+                throw new BudgetExhaustedException();
+            }
+            Map<Residuals, BigInteger[]> next = new HashMap<>();
+            for (var pair : layer.entrySet()) {
+                for (int value = 0; value <= 1; value++) {
+                    Residuals state = assign(order, i, pair.getKey(), value);
+                    if (state != null) {
+                        BigInteger[] counts = next.computeIfAbsent(state, k -> zeros(pair.getValue().length + 1));
+                        addShifted(counts, pair.getValue(), value);
+                    }
+                }
+            }
+            layer = next;
+            layers.add(layer);
+        }
+
+        // Backward pass: completions.get(i) maps each residual state before
+        // the ith cell to the number of ways of assigning the remaining cells
+        List<Map<Residuals, BigInteger[]>> completions = new ArrayList<>(Collections.nCopies(n + 1, null));
+        Map<Residuals, BigInteger[]> completion = new HashMap<>();
+        for (Residuals state : layers.get(n).keySet()) {
+            completion.put(state, new BigInteger[]{BigInteger.ONE});
+        }
+        completions.set(n, completion);
+        for (int i = n - 1; i >= 0; i--) {
+            Map<Residuals, BigInteger[]> previous = new HashMap<>();
+            for (Residuals state : layers.get(i).keySet()) {
+                BigInteger[] counts = zeros(n - i + 1);
+                for (int value = 0; value <= 1; value++) {
+                    Residuals nextState = assign(order, i, state, value);
+                    if (nextState != null) {
+                        addShifted(counts, completion.get(nextState), value);
+                    }
+                }
+                previous.put(state, counts);
+            }
+            completion = previous;
+            completions.set(i, completion);
+        }
+
+        ComponentModelCounts result = new ComponentModelCounts(n);
+        BigInteger[] models = completions.get(0).get(new Residuals(initial));
+        for (int k = 0; k <= n; k++) {
+            result.setModels(k, models[k]);
+        }
+
+        // A cell's mine count is the number of ways to reach it, times one
+        // mine for the cell, times the number of ways to finish from there
+        for (int i = 0; i < n; i++) {
+            BigInteger[] cellMines = zeros(n + 1);
+            for (var pair : layers.get(i).entrySet()) {
+                Residuals nextState = assign(order, i, pair.getKey(), 1);
+                if (nextState == null) {
+                    continue;
+                }
+                BigInteger[] before = pair.getValue();
+                BigInteger[] after = completions.get(i + 1).get(nextState);
+                for (int a = 0; a < before.length; a++) {
+                    if (before[a].signum() == 0) {
+                        continue;
+                    }
+                    for (int b = 0; b < after.length; b++) {
+                        cellMines[a + b + 1] = cellMines[a + b + 1].add(before[a].multiply(after[b]));
+                    }
+                }
+            }
+            for (int k = 0; k <= n; k++) {
+                result.setCellMines(order.cell(i), k, cellMines[k]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Assign a value to the cell at a position in the order, updating the
+     * residual of each of its constraints.
+     *
+     * @return the new state, or null if a constraint can no longer be met.
+     */
+    private Residuals assign(AssignmentOrder order, int position, Residuals state, int value) {
+        if (!order.allows(position, state.residuals, value)) {
+            return null;
+        }
+        byte[] residuals = state.residuals.clone();
+        order.assign(position, residuals, value);
+        return new Residuals(residuals);
+    }
+
+    private static BigInteger[] zeros(int length) {
+        BigInteger[] counts = new BigInteger[length];
+        Arrays.fill(counts, BigInteger.ZERO);
+        return counts;
+    }
+
+    private static void addShifted(BigInteger[] target, BigInteger[] counts, int shift) {
+        for (int k = 0; k < counts.length; k++) {
+            target[k + shift] = target[k + shift].add(counts[k]);
+        }
+    }
+
+    /**
+     * The number of mines each constraint of a component still needs.
+     */
+    private static final class Residuals {
+        private final byte[] residuals;
+        private final int hash;
+
+        private Residuals(byte[] residuals) {
+            this.residuals = residuals;
+            this.hash = Arrays.hashCode(residuals);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(residuals, ((Residuals) o).residuals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
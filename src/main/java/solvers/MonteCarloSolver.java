@@ -0,0 +1,413 @@
+package main.java.solvers;
+
+import main.java.Cell;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.fraction.BigFraction;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * A probability solver that estimates the model counts of large frontier
+ * components by sampling, for frontiers too large or too open to count
+ * exactly.
+ * <p>
+ * Components of at most {@link #getExactCells()} cells are counted exactly as
+ * {@link ModelCountingSolver} does. Larger ones are sampled by sequential
+ * importance sampling with resampling: a population of partial models is
+ * extended one cell at a time, in the same order as when counting, each
+ * model giving the cell one of the values its constraints still allow,
+ * chosen uniformly. A model is weighted by the number of values it could
+ * have chosen from at each cell, which makes the weights of the complete
+ * models estimates of the component's model counts, up to a scale that
+ * cancels out of the probabilities; a model that reaches a cell with no
+ * value left has weight 0. Whenever the weights grow too uneven the
+ * population is resampled in proportion to them, so the samples are spent
+ * on the models that matter rather than carried by a few heavy ones. The
+ * estimates converge on the exact probabilities as the number of samples
+ * grows.
+ * <p>
+ * The samples are split into batches, each drawn from its own seeded random
+ * number generator, so the results depend only on the seed and not on the
+ * number of threads. Each batch is combined with the sea on its own, and the
+ * probabilities are the mean of the batches' probabilities, whose spread
+ * gives a confidence interval for each cell. The interval only allows for
+ * the spread between batches, so with few samples per batch it can be
+ * narrower than the error of a strongly constrained component's estimates.
+ * <p>
+ * Sampled counts are estimates, so they are never put in a model counts
+ * cache.
+ */
+public class MonteCarloSolver extends ModelCountingSolver {
+
+    public static final int DEFAULT_SAMPLES = 20_000;
+    public static final int DEFAULT_BATCHES = 8;
+    public static final int DEFAULT_EXACT_CELLS = 24;
+    public static final double CONFIDENCE = 0.95;
+
+    // Bits of precision kept when a sample's weight is made a whole number
+    private static final int WEIGHT_BITS = 52;
+
+    private int samples;
+    private int batches;
+    private int exactCells;
+    private int samplingThreads;
+    private long seed;
+
+    public MonteCarloSolver(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+        this.samples = DEFAULT_SAMPLES;
+        this.batches = DEFAULT_BATCHES;
+        this.exactCells = DEFAULT_EXACT_CELLS;
+        this.samplingThreads = 1;
+        this.seed = 1;
+        // The batches are combined with doubles, and the estimates are no
+        // better than that anyway
+        setFastArithmetic(true);
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @param samples number of samples drawn for each sampled component, per
+     *                call, split evenly between the batches.
+     */
+    public void setSamples(int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("samples must be at least 1");
+        }
+        this.samples = samples;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @param batches number of batches the samples are split into. At least
+     *                two are needed for a confidence interval.
+     */
+    public void setBatches(int batches) {
+        if (batches < 1) {
+            throw new IllegalArgumentException("batches must be at least 1");
+        }
+        this.batches = batches;
+    }
+
+    public int getExactCells() {
+        return exactCells;
+    }
+
+    /**
+     * @param exactCells size of the largest component counted exactly rather
+     *                   than sampled, 0 to sample every component.
+     */
+    public void setExactCells(int exactCells) {
+        this.exactCells = exactCells;
+    }
+
+    public int getSamplingThreads() {
+        return samplingThreads;
+    }
+
+    /**
+     * @param samplingThreads number of threads the batches are drawn on, 1
+     *                        to draw them on the calling thread.
+     */
+    public void setSamplingThreads(int samplingThreads) {
+        if (samplingThreads < 1) {
+            throw new IllegalArgumentException("samplingThreads must be at least 1");
+        }
+        this.samplingThreads = samplingThreads;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Estimate the probability of every closed shore cell and sea cell being
+     * a mine.
+     * <p>
+     * Each sample is one step of the budget. If the budget runs out the
+     * estimates are made from the batches drawn so far, and if there are
+     * none the cells of the sampled components are treated as sea cells.
+     *
+     * @return mapping of cell to its estimate, with a {@link #CONFIDENCE}
+     * confidence interval. Empty if no consistent models were found.
+     */
+    public Map<Cell, ProbabilityEstimate> getEstimates() {
+        startBudget();
+        List<FrontierComponent> components = getShoreComponents();
+        List<Cell> seaCells = new ArrayList<>(getSeaCells());
+
+        // Count the small components, leaving null for those to be sampled
+        ComponentModelCounts[] exact = new ComponentModelCounts[components.size()];
+        for (int i = 0; i < components.size(); i++) {
+            if (components.get(i).size() <= exactCells) {
+                try {
+                    exact[i] = getModelCounts(components.get(i));
+                } catch (BudgetExhaustedException e) {
+                    // Sampled instead, which keeps whatever batches it can
+                }
+            }
+        }
+        boolean sampled = Arrays.stream(exact).anyMatch(Objects::isNull);
+
+        // Estimate each batch in which every sampled component has a model
+        List<Map<Cell, Double>> batchProbs = new ArrayList<>();
+        for (ComponentModelCounts[] batch : drawBatches(components, exact)) {
+            if (batch == null) {
+                continue;
+            }
+            List<ComponentModelCounts> counts = new ArrayList<>();
+            for (int i = 0; i < components.size(); i++) {
+                counts.add(exact[i] != null ? exact[i] : batch[i]);
+            }
+            if (counts.stream().allMatch(MonteCarloSolver::hasModels)) {
+                Map<Cell, Double> probs = getApproximateProbabilities(components, counts, seaCells);
+                if (!probs.isEmpty()) {
+                    batchProbs.add(probs);
+                }
+            }
+        }
+
+        Map<Cell, ProbabilityEstimate> estimates = new HashMap<>();
+        if (!sampled || batchProbs.isEmpty()) {
+            // Nothing was sampled, or nothing could be: work with the exact
+            // counts alone
+            List<FrontierComponent> counted = new ArrayList<>();
+            List<ComponentModelCounts> counts = new ArrayList<>();
+            for (int i = 0; i < components.size(); i++) {
+                if (exact[i] != null) {
+                    counted.add(components.get(i));
+                    counts.add(exact[i]);
+                } else {
+                    seaCells.addAll(components.get(i).getCells());
+                }
+            }
+            if (sampled) {
+                markPartial();
+            }
+            getApproximateProbabilities(counted, counts, seaCells).forEach((cell, p) ->
+                    estimates.put(cell, sampled
+                            ? new ProbabilityEstimate(p, Double.NaN, 0, 1)
+                            : new ProbabilityEstimate(p, 0, p, p)));
+            return estimates;
+        }
+
+        int n = batchProbs.size();
+        double t = n < 2 ? 0 : new TDistribution(n - 1).inverseCumulativeProbability((1 + CONFIDENCE) / 2);
+        for (Cell cell : batchProbs.get(0).keySet()) {
+            double mean = 0;
+            for (Map<Cell, Double> probs : batchProbs) {
+                mean += probs.get(cell);
+            }
+            mean /= n;
+            if (n < 2) {
+                estimates.put(cell, new ProbabilityEstimate(mean, Double.NaN, 0, 1));
+                continue;
+            }
+            double squares = 0;
+            for (Map<Cell, Double> probs : batchProbs) {
+                double difference = probs.get(cell) - mean;
+                squares += difference * difference;
+            }
+            double error = Math.sqrt(squares / (n - 1) / n);
+            estimates.put(cell, new ProbabilityEstimate(mean, error,
+                    Math.max(0, mean - t * error), Math.min(1, mean + t * error)));
+        }
+        return estimates;
+    }
+
+    /**
+     * @return the estimated probabilities, as exact fractions of the doubles
+     * they were worked out in.
+     */
+    @Override
+    public Map<Cell, BigFraction> getProbabilities() {
+        Map<Cell, BigFraction> probs = new HashMap<>();
+        getEstimates().forEach((cell, estimate) -> probs.put(cell, new BigFraction(estimate.getProbability())));
+        return probs;
+    }
+
+    /**
+     * @return the estimated probabilities. They are only within
+     * {@link #FAST_TOLERANCE} of the exact probabilities if every component
+     * was counted exactly.
+     */
+    @Override
+    public Map<Cell, Double> getApproximateProbabilities() {
+        Map<Cell, Double> probs = new HashMap<>();
+        getEstimates().forEach((cell, estimate) -> probs.put(cell, estimate.getProbability()));
+        return probs;
+    }
+
+    /**
+     * Draw every batch of samples of the components without exact counts.
+     *
+     * @return the estimated counts of each batch, indexed by component. Null
+     * for the components counted exactly, and for those the budget ran out
+     * on, and null batches for those cut short by an interrupt.
+     */
+    private List<ComponentModelCounts[]> drawBatches(List<FrontierComponent> components,
+                                                     ComponentModelCounts[] exact) {
+        AssignmentOrder[] orders = new AssignmentOrder[components.size()];
+        boolean sampling = false;
+        for (int i = 0; i < components.size(); i++) {
+            if (exact[i] == null) {
+                orders[i] = new AssignmentOrder(components.get(i));
+                sampling = true;
+            }
+        }
+        if (!sampling) {
+            return new ArrayList<>();
+        }
+
+        List<Callable<ComponentModelCounts[]>> tasks = new ArrayList<>();
+        for (int b = 0; b < batches; b++) {
+            // Share the samples out so that the batches add up to exactly
+            // the number asked for
+            int batchSamples = samples / batches + (b < samples % batches ? 1 : 0);
+            SplittableRandom random = new SplittableRandom(seed + b * 0x9E3779B97F4A7C15L);
+            tasks.add(() -> {
+                ComponentModelCounts[] counts = new ComponentModelCounts[components.size()];
+                for (int i = 0; i < components.size(); i++) {
+                    if (orders[i] != null && batchSamples > 0 && spendBudget(batchSamples)) {
+                        counts[i] = sample(components.get(i), orders[i], batchSamples, random);
+                    }
+                }
+                return counts;
+            });
+        }
+        return runAll(getPool(samplingThreads), tasks);
+    }
+
+    /**
+     * Draw a population of models of the component, as described above.
+     *
+     * @param count size of the population.
+     * @return the complete models, each added with its weight, or null if
+     * the budget ran out.
+     */
+    private ComponentModelCounts sample(FrontierComponent component, AssignmentOrder order, int count,
+                                        SplittableRandom random) {
+        int n = order.size();
+        byte[] initial = new byte[component.getConstraintCount()];
+        for (int c = 0; c < initial.length; c++) {
+            initial[c] = (byte) component.getValue(c);
+        }
+        byte[][] residuals = new byte[count][];
+        boolean[][] mines = new boolean[count][n];
+        double[] weights = new double[count];
+        for (int s = 0; s < count; s++) {
+            residuals[s] = initial.clone();
+            weights[s] = 1;
+        }
+
+        for (int position = 0; position < n; position++) {
+            if (!spendBudget(0)) {
+                return null;
+            }
+            double total = 0;
+            double squares = 0;
+            double heaviest = 0;
+            for (int s = 0; s < count; s++) {
+                if (weights[s] == 0) {
+                    continue;
+                }
+                boolean safe = order.allows(position, residuals[s], 0);
+                boolean mine = order.allows(position, residuals[s], 1);
+                if (safe && mine) {
+                    weights[s] *= 2;
+                    mine = random.nextBoolean();
+                } else if (!safe && !mine) {
+                    weights[s] = 0;
+                    continue;
+                }
+                if (mine) {
+                    order.assign(position, residuals[s], 1);
+                    mines[s][position] = true;
+                }
+                total += weights[s];
+                squares += weights[s] * weights[s];
+                heaviest = Math.max(heaviest, weights[s]);
+            }
+            if (total == 0) {
+                return new ComponentModelCounts(component.size());
+            }
+            if (total * total < squares * count / 2) {
+                resample(residuals, mines, weights, total, random);
+            } else {
+                // Only the ratios of the weights matter, so keep them from
+                // overflowing
+                for (int s = 0; s < count; s++) {
+                    weights[s] /= heaviest;
+                }
+            }
+        }
+
+        ComponentModelCounts counts = new ComponentModelCounts(component.size());
+        int[] mineCells = new int[n];
+        double heaviest = Arrays.stream(weights).max().orElse(0);
+        for (int s = 0; s < count; s++) {
+            long weight = Math.round(Math.scalb(weights[s] / heaviest, WEIGHT_BITS));
+            if (weight == 0) {
+                continue;
+            }
+            int k = 0;
+            for (int position = 0; position < n; position++) {
+                if (mines[s][position]) {
+                    mineCells[k++] = order.cell(position);
+                }
+            }
+            counts.addModel(mineCells, k, BigInteger.valueOf(weight));
+        }
+        return counts;
+    }
+
+    /**
+     * Replace the population with one drawn from it in proportion to the
+     * weights, by systematic resampling, giving every new member the same
+     * weight.
+     */
+    private static void resample(byte[][] residuals, boolean[][] mines, double[] weights, double total,
+                                 SplittableRandom random) {
+        int count = weights.length;
+        byte[][] oldResiduals = residuals.clone();
+        boolean[][] oldMines = mines.clone();
+        double[] oldWeights = weights.clone();
+        double step = total / count;
+        double next = random.nextDouble() * step;
+        double cumulative = 0;
+        int from = -1;
+        for (int s = 0; s < count; s++) {
+            while (cumulative <= next && from < count - 1) {
+                cumulative += oldWeights[++from];
+            }
+            residuals[s] = oldResiduals[from].clone();
+            mines[s] = oldMines[from].clone();
+            weights[s] = 1;
+            next += step;
+        }
+    }
+
+    private static boolean hasModels(ComponentModelCounts counts) {
+        if (counts == null) {
+            return false;
+        }
+        for (int k = 0; k <= counts.getMaxMines(); k++) {
+            if (counts.getModels(k).signum() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
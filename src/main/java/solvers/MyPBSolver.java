@@ -5,24 +5,174 @@ import org.sat4j.core.VecInt;
 import org.sat4j.pb.SolverFactory;
 import org.sat4j.pb.core.PBSolver;
 import org.sat4j.specs.ContradictionException;
-import org.sat4j.specs.IConstr;
 import org.sat4j.specs.IVecInt;
 import org.sat4j.specs.TimeoutException;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MyPBSolver extends AbstractSolver {
 
+    private static final long POOL_KEEP_ALIVE_SECONDS = 30;
+
     public final List<String> constraintLog;
 
+    // In incremental mode each worker keeps a single solver (its session) for
+    // the whole game and only newly opened cells have their constraints added
+    private final boolean incremental;
+    private final List<Session> sessions;
+    // Number of worker solvers the probes are spread across
+    private int probeThreads;
+    // Worker threads, started when first needed and kept until close()
+    private ThreadPoolExecutor pool;
+    // Probes sent to a solver, and probes skipped because an earlier model
+    // already showed the probed value was possible
+    private final LongAdder satCalls;
+    private final LongAdder reusedModelHits;
+    // Models the SAT solver has found, by probing or by enumeration
+    private final LongAdder modelsFound;
+    private ComponentCache<Boolean[]> knownCellsCache;
+
     public MyPBSolver(Cell[][] cells, int width, int height, int mines) {
+        this(cells, width, height, mines, false);
+    }
+
+    /**
+     * @param incremental if true the same PB solver is reused between calls to
+     *                    {@link #getKnownCells()}, so a single instance of this
+     *                    class must only ever be used for one game.
+     */
+    public MyPBSolver(Cell[][] cells, int width, int height, int mines, boolean incremental) {
         super(cells, width, height, mines);
+        this.incremental = incremental;
+        this.sessions = new ArrayList<>();
+        this.probeThreads = 1;
+        this.satCalls = new LongAdder();
+        this.reusedModelHits = new LongAdder();
+        this.modelsFound = new LongAdder();
         constraintLog = new ArrayList<>();
     }
 
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public int getProbeThreads() {
+        return probeThreads;
+    }
+
+    /**
+     * Set how many worker solvers the cell probes are spread across. Each
+     * worker has its own copy of the constraints and the results are merged
+     * in a fixed order, so they are the same as probing on a single thread.
+     *
+     * @param probeThreads number of worker threads, 1 to probe on the calling
+     *                     thread.
+     */
+    public void setProbeThreads(int probeThreads) {
+        if (probeThreads < 1) {
+            throw new IllegalArgumentException("probeThreads must be at least 1");
+        }
+        this.probeThreads = probeThreads;
+    }
+
+    /**
+     * Get the solver's worker threads, which are started on the first call
+     * that needs them and kept for later calls, so a call does not pay for
+     * starting threads. Idle threads are daemons and stop after a while, so a
+     * solver that is never closed does not hold on to them.
+     *
+     * @param threads number of threads wanted.
+     * @return a pool of at least the given number of threads, or null to run
+     * on the calling thread if only one is wanted.
+     */
+    protected synchronized ExecutorService getPool(int threads) {
+        if (threads <= 1) {
+            return null;
+        }
+        if (pool == null) {
+            pool = new ThreadPoolExecutor(threads, threads, POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), task -> {
+                        Thread thread = new Thread(task, getClass().getSimpleName() + "-worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+        } else if (pool.getMaximumPoolSize() < threads) {
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        }
+        return pool;
+    }
+
+    /**
+     * Stop the worker threads once the calls in progress have finished.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return the number of satisfiability checks made while probing cells
+     * since this solver was created (or its statistics were reset).
+     */
+    public long getSatCalls() {
+        return satCalls.sum();
+    }
+
+    /**
+     * @return the number of satisfiability checks skipped because a model
+     * found by an earlier check already answered them.
+     */
+    public long getReusedModelHits() {
+        return reusedModelHits.sum();
+    }
+
+    /**
+     * @return the number of models the SAT solver has found, as satisfiable
+     * probes or while enumerating models.
+     */
+    public long getModelsFound() {
+        return modelsFound.sum();
+    }
+
+    protected void countModelFound() {
+        modelsFound.increment();
+    }
+
+    public void resetStatistics() {
+        satCalls.reset();
+        reusedModelHits.reset();
+        modelsFound.reset();
+    }
+
+    public ComponentCache<Boolean[]> getKnownCellsCache() {
+        return knownCellsCache;
+    }
+
+    /**
+     * Set the cache holding which cells of each component shape are known
+     * from the component's own constraints. Each element of a cached array
+     * is whether the component's cell at that index is a mine, or null if it
+     * is not known. The cache may be shared between solvers, e.g. those
+     * playing the games of one simulation run. By default there is no cache.
+     *
+     * @param knownCellsCache the cache, or null to always solve components.
+     */
+    public void setKnownCellsCache(ComponentCache<Boolean[]> knownCellsCache) {
+        this.knownCellsCache = knownCellsCache;
+    }
+
     protected PBSolver generateBaseConstraints() {
         constraintLog.clear();
         PBSolver solver = SolverFactory.newDefault();
+        // Declare every cell so probes can assume cells absent from any constraint
+        solver.newVar(width * height);
         try {
             addBoardConstraint(solver);
             addOpenCellConstraint(solver);
@@ -53,103 +203,407 @@ public class MyPBSolver extends AbstractSolver {
 
     protected void addOpenCellConstraint(PBSolver solver)
             throws ContradictionException {
+        for (Cell cell : getLandCells()) {
+            addOpenCellConstraint(solver, cell);
+        }
+    }
+
+    protected void addOpenCellConstraint(PBSolver solver, Cell cell)
+            throws ContradictionException {
         IVecInt lits = new VecInt();
         IVecInt coeffs = new VecInt();
 
-        List<Cell> openCells = getLandCells();
+        lits.push(encodeCellId(cell));
+        coeffs.push(1);
+        solver.addAtMost(lits, coeffs, 0);
+        solver.addAtLeast(lits, coeffs, 0);
+        lits.clear();
+        coeffs.clear();
 
-        for (Cell cell : openCells) {
-            lits.push(encodeCellId(cell));
+        // Normal constraint
+        int id = neighbourIndex.id(cell.getX(), cell.getY());
+        for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+            lits.push(encodeCellId(cellAt(neighbourIndex.neighbour(i))));
             coeffs.push(1);
-            solver.addAtMost(lits, coeffs, 0);
-            solver.addAtLeast(lits, coeffs, 0);
-            lits.clear();
-            coeffs.clear();
-
-            // Normal constraint
-            List<Cell> neighbours = getNeighbours(cell.getX(), cell.getY());
-            for (Cell c : neighbours) {
-                lits.push(encodeCellId(c));
-                coeffs.push(1);
+        }
+        solver.addAtMost(lits, coeffs, cell.getNumber());
+        solver.addAtLeast(lits, coeffs, cell.getNumber());
+    }
+
+    /**
+     * Build a solver holding only the constraints of the open cells bordering
+     * the given component. The board's mine count is not included.
+     */
+    protected PBSolver generateComponentConstraints(FrontierComponent component) {
+        PBSolver solver = SolverFactory.newDefault();
+        solver.newVar(width * height);
+        IVecInt lits = new VecInt();
+        IVecInt coeffs = new VecInt();
+        try {
+            for (int i = 0; i < component.getConstraintCount(); i++) {
+                for (int j : component.getConstraint(i)) {
+                    lits.push(encodeCellId(component.getCells().get(j)));
+                    coeffs.push(1);
+                }
+                solver.addAtMost(lits, coeffs, component.getValue(i));
+                solver.addAtLeast(lits, coeffs, component.getValue(i));
+                lits.clear();
+                coeffs.clear();
+            }
+        } catch (ContradictionException e) {
+        }
+        return solver;
+    }
+
+    /**
+     * Build a solver holding the rows of a system reduced by
+     * {@link GaussianSolver}, with the sea column spread over every sea cell.
+     * A row whose coefficients do not fit in an int is left out.
+     */
+    protected PBSolver generateReducedConstraints(ReducedSystem system) {
+        PBSolver solver = SolverFactory.newDefault();
+        solver.newVar(width * height);
+        IVecInt lits = new VecInt();
+        IVecInt coeffs = new VecInt();
+        List<Cell> reducedCells = system.getCells();
+        try {
+            for (int row = 0; row < system.getRowCount(); row++) {
+                try {
+                    for (int column = 0; column < reducedCells.size(); column++) {
+                        long coefficient = system.getCoefficient(row, column);
+                        if (coefficient != 0) {
+                            lits.push(encodeCellId(reducedCells.get(column)));
+                            coeffs.push(Math.toIntExact(coefficient));
+                        }
+                    }
+                    long seaCoefficient = system.hasSeaColumn() ? system.getCoefficient(row, reducedCells.size()) : 0;
+                    if (seaCoefficient != 0) {
+                        for (Cell cell : system.getSeaCells()) {
+                            lits.push(encodeCellId(cell));
+                            coeffs.push(Math.toIntExact(seaCoefficient));
+                        }
+                    }
+                    int value = Math.toIntExact(system.getValue(row));
+                    solver.addAtMost(lits, coeffs, value);
+                    solver.addAtLeast(lits, coeffs, value);
+                } catch (ArithmeticException e) {
+                    // Leaving a row out only loses deductions
+                }
+                lits.clear();
+                coeffs.clear();
             }
-            solver.addAtMost(lits, coeffs, cell.getNumber());
-            solver.addAtLeast(lits, coeffs, cell.getNumber());
-            lits.clear();
-            coeffs.clear();
+        } catch (ContradictionException e) {
         }
+        return solver;
     }
 
+    /**
+     * If the budget runs out the cells found so far are returned and the
+     * answer is marked as partial.
+     */
     public Map<Cell, Boolean> getKnownCells() {
+        startBudget();
         Map<Cell, Boolean> results = new HashMap<>();
+        ExecutorService pool = getPool(probeThreads);
 
-        PBSolver solver = generateBaseConstraints();
+        // Test the cells of each component against only its own constraints
+        List<FrontierComponent> components = getShoreComponents();
+        List<Callable<Map<Cell, Boolean>>> componentTasks = new ArrayList<>();
+        int frontierSize = 0;
+        for (FrontierComponent component : components) {
+            componentTasks.add(() -> getKnownCells(component));
+            frontierSize += component.size();
+        }
+        runAll(pool, componentTasks).stream().filter(Objects::nonNull).forEach(results::putAll);
+        if (isPartial()) {
+            return results;
+        }
 
-        List<Cell> shoreCells = getClosedShoreCells();
+        // If the sea can absorb any number of frontier mines while still
+        // having room for a mine and a safe cell, the board's mine count
+        // adds no information and every local result is already final
+        List<Cell> seaCells = getSeaCells();
+        if (frontierSize < mines && mines < seaCells.size()) {
+            return results;
+        }
 
-        // Test all shore cells
-        for (Cell cell : shoreCells) {
-            for (int weight = 0; weight <= 1; weight++) {
-                Optional<Boolean> isMine =
-                        checkCellWithWeight(solver, cell, weight);
-                if (isMine.isPresent()) {
-                    results.put(cell, isMine.get());
-                    break;
+        // Retest the undetermined shore cells with the mine count, dealing
+        // the cells out between the workers
+        List<Cell> undetermined = new ArrayList<>();
+        for (FrontierComponent component : components) {
+            for (Cell cell : component.getCells()) {
+                if (!results.containsKey(cell)) {
+                    undetermined.add(cell);
                 }
             }
         }
+        int workers = Math.max(1, Math.min(probeThreads, undetermined.size()));
+        PBSolver[] solvers = new PBSolver[workers];
+        for (int w = 0; w < workers; w++) {
+            solvers[w] = incremental ? getSession(w).update() : generateBaseConstraints();
+            if (solvers[w] == null) {
+                return results;
+            }
+        }
+        List<Callable<Map<Cell, Boolean>>> probeTasks = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            PBSolver solver = solvers[w];
+            List<Cell> share = new ArrayList<>();
+            for (int i = w; i < undetermined.size(); i += workers) {
+                share.add(undetermined.get(i));
+            }
+            probeTasks.add(() -> checkCells(solver, share));
+        }
+        runAll(pool, probeTasks).stream().filter(Objects::nonNull).forEach(results::putAll);
 
         // Test a sea cell
-        List<Cell> seaCells = getSeaCells();
         if (!seaCells.isEmpty()) {
             // if one sea cell is safe/a mine than all sea cells are safe/a mine
-            Cell cell = seaCells.get(0);
-            for (int weight = 0; weight <= 1; weight++) {
-                Optional<Boolean> isMine =
-                        checkCellWithWeight(solver, cell, weight);
-                if (isMine.isPresent()) {
-                    for (Cell c : seaCells) {
-                        results.put(c, isMine.get());
-                    }
-                    break;
+            checkCell(solvers[0], seaCells.get(0)).ifPresent(isMine -> {
+                for (Cell c : seaCells) {
+                    results.put(c, isMine);
                 }
+            });
+        }
+
+        if (!incremental) {
+            for (PBSolver solver : solvers) {
+                solver.reset();
             }
         }
 
+        return results;
+    }
+
+    /**
+     * Run the tasks on the pool (or on this thread if there is no pool). If
+     * the thread is interrupted the answer is marked as partial.
+     *
+     * @return the result of each task, in the same order as the tasks, with
+     * null for the tasks that did not finish before an interrupt.
+     */
+    protected <T> List<T> runAll(ExecutorService pool, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        try {
+            if (pool == null) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+            } else {
+                for (Future<T> future : pool.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markPartial();
+            while (results.size() < tasks.size()) {
+                results.add(null);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Find the cells of a component that are known from the component's own
+     * constraints, without the board's mine count. This spends the budget of
+     * the call in progress (if any) rather than starting a new one, and a
+     * component cut short by the budget is not cached.
+     */
+    public Map<Cell, Boolean> getKnownCells(FrontierComponent component) {
+        Boolean[] known = knownCellsCache == null
+                ? solveComponent(component)
+                : knownCellsCache.get(component, () -> solveComponent(component), value -> !isPartial());
+        Map<Cell, Boolean> results = new HashMap<>();
+        for (int i = 0; i < known.length; i++) {
+            if (known[i] != null) {
+                results.put(component.getCells().get(i), known[i]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Find the known cells from a system reduced by {@link GaussianSolver}
+     * instead of the open cell constraints. The cells the reduction settled
+     * are not probed again, and the rows left mention only the undetermined
+     * cells, so the probes are smaller. Like
+     * {@link #getKnownCells(FrontierComponent)} this spends the budget of the
+     * call in progress.
+     */
+    public Map<Cell, Boolean> getKnownCells(ReducedSystem system) {
+        Map<Cell, Boolean> results = new HashMap<>(system.getKnownCells());
+        PBSolver solver = generateReducedConstraints(system);
+        results.putAll(checkCells(solver, system.getCells()));
+        if (system.hasSeaColumn()) {
+            List<Cell> seaCells = system.getSeaCells();
+            checkCell(solver, seaCells.get(0)).ifPresent(isMine -> {
+                for (Cell cell : seaCells) {
+                    results.put(cell, isMine);
+                }
+            });
+        }
+        solver.reset();
+        return results;
+    }
+
+    private Boolean[] solveComponent(FrontierComponent component) {
+        PBSolver solver = generateComponentConstraints(component);
+        Map<Cell, Boolean> results = checkCells(solver, component.getCells());
         solver.reset();
+        Boolean[] known = new Boolean[component.size()];
+        for (int i = 0; i < known.length; i++) {
+            known[i] = results.get(component.getCells().get(i));
+        }
+        return known;
+    }
 
+    /**
+     * Test each cell as safe and then as a mine. Every model found along the
+     * way is remembered, and a value is not tested if a remembered model
+     * already has the cell taking it.
+     */
+    private Map<Cell, Boolean> checkCells(PBSolver solver, List<Cell> cellsToCheck) {
+        Map<Cell, Boolean> results = new HashMap<>();
+        int[] lits = cellsToCheck.stream().mapToInt(this::encodeCellId).toArray();
+        boolean[] seenSafe = new boolean[lits.length];
+        boolean[] seenMine = new boolean[lits.length];
+        for (int i = 0; i < lits.length && !isPartial(); i++) {
+            for (int weight = 0; weight <= 1; weight++) {
+                if (weight == 0 ? seenSafe[i] : seenMine[i]) {
+                    reusedModelHits.increment();
+                    continue;
+                }
+                Optional<Boolean> satisfiable = isSatisfiableWith(solver, cellsToCheck.get(i), weight);
+                if (satisfiable.isEmpty()) {
+                    continue;
+                }
+                if (!satisfiable.get()) {
+                    results.put(cellsToCheck.get(i), weight != 1);
+                    break;
+                }
+                // Record the model for the cells still to be tested
+                for (int j = i; j < lits.length; j++) {
+                    if (solver.model(lits[j])) {
+                        seenMine[j] = true;
+                    } else {
+                        seenSafe[j] = true;
+                    }
+                }
+            }
+        }
         return results;
     }
 
-    private Optional<Boolean> checkCellWithWeight(PBSolver solver, final Cell cell, final int weight) {
-        IVecInt lit = new VecInt();
-        IVecInt coeff = new VecInt();
-        IConstr atMostConstr = null;
-        IConstr atLeastConstr = null;
+    /**
+     * Test the cell as safe and then as a mine.
+     *
+     * @return whether the cell is a mine, if only one of the two is possible.
+     */
+    private Optional<Boolean> checkCell(PBSolver solver, final Cell cell) {
+        for (int weight = 0; weight <= 1; weight++) {
+            Optional<Boolean> isMine = checkCellWithWeight(solver, cell, weight);
+            if (isMine.isPresent()) {
+                return isMine;
+            }
+        }
+        return Optional.empty();
+    }
 
-        Optional<Boolean> result = Optional.empty();
+    /**
+     * Probe whether the cell can take the given weight (0 for safe, 1 for a
+     * mine). The weight is passed to the solver as an assumption so nothing has
+     * to be added to (or removed from) the solver.
+     *
+     * @return if the cell cannot take the weight, whether the cell is a mine.
+     * Empty if the weight is possible.
+     */
+    private Optional<Boolean> checkCellWithWeight(PBSolver solver, final Cell cell, final int weight) {
+        return isSatisfiableWith(solver, cell, weight)
+                .filter(satisfiable -> !satisfiable)
+                .map(satisfiable -> weight != 1);
+    }
 
-        lit.push(encodeCellId(cell));
-        coeff.push(1);
+    /**
+     * @return whether the cell can take the given weight. Empty if the budget
+     * has run out or the solver timed out.
+     */
+    private Optional<Boolean> isSatisfiableWith(PBSolver solver, final Cell cell, final int weight) {
+        if (!spendBudget(1)) {
+            return Optional.empty();
+        }
+        int lit = encodeCellId(cell);
+        IVecInt assumption = new VecInt(new int[]{weight == 1 ? lit : -lit});
 
+        Optional<Boolean> result = Optional.empty();
         try {
-            atMostConstr = solver.addAtMost(lit, coeff, weight);
-            atLeastConstr = solver.addAtLeast(lit, coeff, weight);
-            if (!solver.isSatisfiable()) {
-                boolean isMine = weight != 1;
-                result = Optional.of(isMine);
+            satCalls.increment();
+            solver.setTimeoutMs(millisLeft());
+            result = Optional.of(solver.isSatisfiable(assumption));
+            if (result.get()) {
+                modelsFound.increment();
             }
-        } catch (ContradictionException e) {
-            result = Optional.of(weight != 1);
         } catch (TimeoutException t) {
-            t.printStackTrace();
+            markPartial();
         }
-        if (atMostConstr != null) {
-            solver.removeConstr(atMostConstr);
+
+        return result;
+    }
+
+    private Session getSession(int worker) {
+        while (sessions.size() <= worker) {
+            sessions.add(new Session());
         }
-        if (atLeastConstr != null) {
-            solver.removeConstr(atLeastConstr);
+        return sessions.get(worker);
+    }
+
+    /**
+     * A solver kept for the whole game, holding the board constraint and the
+     * constraints of every cell that has been opened so far.
+     */
+    private final class Session {
+        private final PBSolver solver;
+        private final boolean[][] constrainedCells;
+        private boolean contradicted;
+
+        private Session() {
+            solver = SolverFactory.newDefault();
+            solver.newVar(width * height);
+            constrainedCells = new boolean[width][height];
+            try {
+                addBoardConstraint(solver);
+            } catch (ContradictionException e) {
+                contradicted = true;
+            }
         }
 
-        return result;
+        /**
+         * Bring the session up to date by adding the constraints of every
+         * cell opened since the last update.
+         *
+         * @return the session's solver, or null if the board is contradictory
+         * (e.g. the game has ended and mines have been opened).
+         */
+        private PBSolver update() {
+            if (contradicted) {
+                return null;
+            }
+            try {
+                for (Cell cell : getLandCells()) {
+                    if (!constrainedCells[cell.getX()][cell.getY()]) {
+                        constrainedCells[cell.getX()][cell.getY()] = true;
+                        addOpenCellConstraint(solver, cell);
+                    }
+                }
+            } catch (ContradictionException e) {
+                contradicted = true;
+                return null;
+            }
+            return solver;
+        }
     }
 }
@@ -0,0 +1,245 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A solver that finds what small windows of open cells imply, by looking each
+ * window up in a table worked out in advance. Two window shapes are covered:
+ * <ul>
+ * <li>The 3x3 window of one open cell and its neighbours, keyed by the
+ * cell's number and which of its neighbours are closed and which are
+ * flagged (9 * 3^8 cases). This finds what {@link SinglePointSolver} does:
+ * a number met by its flags, or needing all of its closed neighbours.</li>
+ * <li>The 4x3 window of two side by side open cells A and B: the 2x3 block
+ * they share plus the column beyond each, ten other cells in all. This finds
+ * the 1-2-1 and 1-1 patterns. It is keyed by the two numbers less the flags
+ * next to each, and which of the ten cells are closed (81 * 1024 cases).
+ * Keying it by the flags as well would give the same deductions from a table
+ * 58 times the size.</li>
+ * </ul>
+ * Each entry holds which closed cells of the window are safe and which are
+ * mines in every assignment meeting the numbers, so at runtime each window
+ * costs one lookup. The tables are built the first time a solver uses them.
+ * <p>
+ * Flagged cells are taken to be mines.
+ */
+public class PatternSolver extends AbstractSolver {
+
+    private static final int WINDOW_SIZE = 10;
+    private static final int WINDOW_MASK = (1 << WINDOW_SIZE) - 1;
+    // Offsets of the neighbours in a 3x3 window, each a base 3 digit of the
+    // window's key
+    private static final int[] SINGLE_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SINGLE_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int SINGLE_CASES = 6561;
+    private static final int DIGIT_CLOSED = 1;
+    private static final int DIGIT_FLAGGED = 2;
+
+    // Offsets from A of each window cell, along the line from A to B and
+    // across it; B is at (1, 0)
+    private static final int[] ALONG = new int[WINDOW_SIZE];
+    private static final int[] ACROSS = new int[WINDOW_SIZE];
+    // Window cells next to A and next to B
+    private static final int A_NEIGHBOURS;
+    private static final int B_NEIGHBOURS;
+
+    static {
+        int k = 0;
+        int aNeighbours = 0;
+        int bNeighbours = 0;
+        for (int along = -1; along <= 2; along++) {
+            for (int across = -1; across <= 1; across++) {
+                if (across == 0 && (along == 0 || along == 1)) {
+                    continue;
+                }
+                ALONG[k] = along;
+                ACROSS[k] = across;
+                if (along <= 1) {
+                    aNeighbours |= 1 << k;
+                }
+                if (along >= 0) {
+                    bNeighbours |= 1 << k;
+                }
+                k++;
+            }
+        }
+        A_NEIGHBOURS = aNeighbours;
+        B_NEIGHBOURS = bNeighbours;
+    }
+
+    private static final class SingleTable {
+        // Indexed by number * 3^8 + the window's key; the low eight bits are
+        // the safe neighbours and the next eight the mines
+        private static final char[] TABLE = buildSingleTable();
+    }
+
+    private static final class PairTable {
+        // Indexed by (number of A * 9 + number of B) * 1024 + closed cells;
+        // the low ten bits are the safe cells and the next ten the mines
+        private static final int[] TABLE = buildPairTable();
+    }
+
+    public PatternSolver(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+    }
+
+    private static char[] buildSingleTable() {
+        char[] table = new char[9 * SINGLE_CASES];
+        for (int number = 0; number <= 8; number++) {
+            for (int key = 0; key < SINGLE_CASES; key++) {
+                int closed = 0;
+                int flagged = 0;
+                int digits = key;
+                for (int k = 0; k < SINGLE_DX.length; k++) {
+                    if (digits % 3 == DIGIT_CLOSED) {
+                        closed |= 1 << k;
+                    } else if (digits % 3 == DIGIT_FLAGGED) {
+                        flagged |= 1 << k;
+                    }
+                    digits /= 3;
+                }
+                table[number * SINGLE_CASES + key] = deduceSingle(number, closed, flagged);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the table entry for the 3x3 window, 0 if the number settles
+     * none of the closed cells or cannot be met.
+     */
+    private static char deduceSingle(int number, int closed, int flagged) {
+        int remaining = number - Integer.bitCount(flagged);
+        if (remaining == 0) {
+            return (char) closed;
+        }
+        if (remaining == Integer.bitCount(closed)) {
+            return (char) (closed << SINGLE_DX.length);
+        }
+        return 0;
+    }
+
+    private static int[] buildPairTable() {
+        int[] table = new int[81 << WINDOW_SIZE];
+        for (int a = 0; a <= 8; a++) {
+            for (int b = 0; b <= 8; b++) {
+                for (int closed = 0; closed <= WINDOW_MASK; closed++) {
+                    table[((a * 9 + b) << WINDOW_SIZE) | closed] = deduce(a, b, closed);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Try every placement of mines in the closed cells of a 4x3 window.
+     *
+     * @return the table entry for the case, 0 if no placement meets both
+     * numbers.
+     */
+    private static int deduce(int a, int b, int closed) {
+        int alwaysMine = closed;
+        int alwaysSafe = closed;
+        boolean possible = false;
+        for (int placed = closed; ; placed = (placed - 1) & closed) {
+            if (Integer.bitCount(placed & A_NEIGHBOURS) == a && Integer.bitCount(placed & B_NEIGHBOURS) == b) {
+                possible = true;
+                alwaysMine &= placed;
+                alwaysSafe &= ~placed;
+            }
+            if (placed == 0) {
+                break;
+            }
+        }
+        return possible ? alwaysSafe | (alwaysMine << WINDOW_SIZE) : 0;
+    }
+
+    public Map<Cell, Boolean> getKnownCells() {
+        Map<Cell, Boolean> results = new HashMap<>();
+        byte[] states = snapshotStates();
+        int[] window = new int[WINDOW_SIZE];
+        List<Cell> openShore = getOpenShoreCells();
+        for (Cell cell : openShore) {
+            int x = cell.getX();
+            int y = cell.getY();
+            checkSingle(states, x, y, results);
+            if (x + 1 < width && isOpen(states[neighbourIndex.id(x + 1, y)])) {
+                checkPair(states, x, y, 1, 0, window, results);
+            }
+            if (y + 1 < height && isOpen(states[neighbourIndex.id(x, y + 1)])) {
+                checkPair(states, x, y, 0, 1, window, results);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Look up the 3x3 window of the open cell at (x, y).
+     */
+    private void checkSingle(byte[] states, int x, int y, Map<Cell, Boolean> results) {
+        int key = 0;
+        for (int k = SINGLE_DX.length - 1; k >= 0; k--) {
+            int nx = x + SINGLE_DX[k];
+            int ny = y + SINGLE_DY[k];
+            int digit = 0;
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                byte state = states[neighbourIndex.id(nx, ny)];
+                digit = state == SNAPSHOT_CLOSED ? DIGIT_CLOSED : state == SNAPSHOT_FLAGGED ? DIGIT_FLAGGED : 0;
+            }
+            key = key * 3 + digit;
+        }
+
+        int entry = SingleTable.TABLE[states[neighbourIndex.id(x, y)] * SINGLE_CASES + key];
+        for (int k = 0; k < SINGLE_DX.length; k++) {
+            if ((entry >> k & 1) != 0) {
+                results.put(cellAt(neighbourIndex.id(x + SINGLE_DX[k], y + SINGLE_DY[k])), false);
+            } else if ((entry >> (k + SINGLE_DX.length) & 1) != 0) {
+                results.put(cellAt(neighbourIndex.id(x + SINGLE_DX[k], y + SINGLE_DY[k])), true);
+            }
+        }
+    }
+
+    /**
+     * Look up the pair of open cells A at (x, y) and B one step along
+     * (dx, dy) from it.
+     */
+    private void checkPair(byte[] states, int x, int y, int dx, int dy, int[] window, Map<Cell, Boolean> results) {
+        int closed = 0;
+        int a = states[neighbourIndex.id(x, y)];
+        int b = states[neighbourIndex.id(x + dx, y + dy)];
+        for (int k = 0; k < WINDOW_SIZE; k++) {
+            int wx = x + ALONG[k] * dx + ACROSS[k] * dy;
+            int wy = y + ALONG[k] * dy + ACROSS[k] * dx;
+            if (wx < 0 || wx >= width || wy < 0 || wy >= height) {
+                window[k] = -1;
+                continue;
+            }
+            window[k] = neighbourIndex.id(wx, wy);
+            byte state = states[window[k]];
+            if (state == SNAPSHOT_CLOSED) {
+                closed |= 1 << k;
+            } else if (state == SNAPSHOT_FLAGGED) {
+                a -= (A_NEIGHBOURS >> k) & 1;
+                b -= (B_NEIGHBOURS >> k) & 1;
+            }
+        }
+        if (closed == 0 || a < 0 || b < 0) {
+            return;
+        }
+
+        int entry = PairTable.TABLE[((a * 9 + b) << WINDOW_SIZE) | closed];
+        int safe = entry & WINDOW_MASK;
+        int mine = entry >>> WINDOW_SIZE;
+        for (int k = 0; k < WINDOW_SIZE; k++) {
+            if ((safe >> k & 1) != 0) {
+                results.put(cellAt(window[k]), false);
+            } else if ((mine >> k & 1) != 0) {
+                results.put(cellAt(window[k]), true);
+            }
+        }
+    }
+}
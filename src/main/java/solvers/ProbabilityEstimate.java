@@ -0,0 +1,56 @@
+package main.java.solvers;
+
+/**
+ * An estimate of the probability that a cell is a mine, with a confidence
+ * interval around it.
+ */
+public class ProbabilityEstimate {
+
+    private final double probability;
+    private final double standardError;
+    private final double lower;
+    private final double upper;
+
+    /**
+     * @param probability   the estimated probability.
+     * @param standardError the standard error of the estimate, NaN if it is
+     *                      not known.
+     * @param lower         the lower end of the confidence interval.
+     * @param upper         the upper end of the confidence interval.
+     */
+    public ProbabilityEstimate(double probability, double standardError, double lower, double upper) {
+        this.probability = probability;
+        this.standardError = standardError;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * @return the width of the confidence interval, which shrinks as more
+     * samples are taken.
+     */
+    public double getWidth() {
+        return upper - lower;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.4f [%.4f, %.4f]", probability, lower, upper);
+    }
+}
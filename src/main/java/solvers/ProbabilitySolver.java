@@ -1,6 +1,5 @@
 package main.java.solvers;
 
-import com.google.common.math.BigIntegerMath;
 import main.java.Cell;
 import main.java.CellState;
 import org.apache.commons.math3.fraction.BigFraction;
@@ -12,31 +11,94 @@ import org.sat4j.specs.TimeoutException;
 
 import java.math.BigInteger;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ProbabilitySolver extends MyPBSolver {
 
+    /**
+     * Probabilities worked out with fast arithmetic are within this of the
+     * exact probabilities.
+     */
+    public static final double FAST_TOLERANCE = 1e-9;
+
+    // Scaled sea weights for fast arithmetic, by sea size and mine count
+    private static final Map<Long, double[]> SEA_WEIGHTS = new ConcurrentHashMap<>();
+    private static final int SEA_WEIGHTS_CAPACITY = 1024;
+    // Bits kept when a count is turned into a double
+    private static final int DOUBLE_BITS = 62;
+
+    private ComponentCache<ComponentModelCounts> modelCountsCache;
+    private boolean fastArithmetic;
+
     public ProbabilitySolver(Cell[][] cells, int width, int height, int mines) {
         super(cells, width, height, mines);
     }
 
+    public boolean isFastArithmetic() {
+        return fastArithmetic;
+    }
+
+    /**
+     * @param fastArithmetic if true {@link #getApproximateProbabilities()} and
+     *                       {@link #getBestCell()} combine the component model
+     *                       counts with doubles rather than exact fractions,
+     *                       and treat probabilities within
+     *                       {@link #FAST_TOLERANCE} of each other as equal.
+     */
+    public void setFastArithmetic(boolean fastArithmetic) {
+        this.fastArithmetic = fastArithmetic;
+    }
+
+    public ComponentCache<ComponentModelCounts> getModelCountsCache() {
+        return modelCountsCache;
+    }
+
+    /**
+     * Share a cache of model counts between solvers, e.g. those playing the
+     * games of one simulation run. Counts are exact, so solvers that count
+     * models differently may share a cache, but solvers whose counts are not
+     * exact must not. By default there is no cache.
+     *
+     * @param modelCountsCache the cache of each component shape's model
+     *                         counts, or null to always count them.
+     */
+    public void setModelCountsCache(ComponentCache<ComponentModelCounts> modelCountsCache) {
+        this.modelCountsCache = modelCountsCache;
+    }
+
+    /**
+     * @return the closed cell least likely to be a mine, preferring cells
+     * with fewer closed neighbours, or null if there are no probabilities
+     * (e.g. the board is contradictory).
+     */
     public Cell getBestCell() {
-        var probabilities = getProbabilities();
+        if (fastArithmetic) {
+            return getBestCell(getApproximateProbabilities());
+        }
+        return getLeastConstrainedCell(getLowestCells());
+    }
+
+    /**
+     * Pick the best cell as {@link #getBestCell()} does with fast arithmetic,
+     * from probabilities that have already been worked out.
+     *
+     * @return the best cell, or null if there are no probabilities.
+     */
+    protected Cell getBestCell(Map<Cell, Double> probabilities) {
+        double bestProb = probabilities.values().stream().mapToDouble(p -> p).min().orElse(1);
         List<Cell> lowestProbCells = new ArrayList<>();
-        BigFraction bestProb = BigFraction.ONE;
         for (var pair : probabilities.entrySet()) {
-            Cell cell = pair.getKey();
-            BigFraction prob = pair.getValue();
-            int comp = prob.compareTo(bestProb);
-            if (comp < 0) {
-                lowestProbCells.clear();
-                bestProb = prob;
-                lowestProbCells.add(cell);
-            } else if (comp == 0) {
-                lowestProbCells.add(cell);
+            if (pair.getValue() <= bestProb + FAST_TOLERANCE) {
+                lowestProbCells.add(pair.getKey());
             }
         }
+        return getLeastConstrainedCell(lowestProbCells);
+    }
 
+    private Cell getLeastConstrainedCell(List<Cell> lowestProbCells) {
+        if (lowestProbCells.isEmpty()) {
+            return null;
+        }
         if (lowestProbCells.size() == 1) {
             return lowestProbCells.get(0);
         }
@@ -61,6 +123,24 @@ public class ProbabilitySolver extends MyPBSolver {
         return bestStrategicCell;
     }
 
+    private List<Cell> getLowestCells() {
+        List<Cell> lowestProbCells = new ArrayList<>();
+        BigFraction bestProb = BigFraction.ONE;
+        for (var pair : getProbabilities().entrySet()) {
+            Cell cell = pair.getKey();
+            BigFraction prob = pair.getValue();
+            int comp = prob.compareTo(bestProb);
+            if (comp < 0) {
+                lowestProbCells.clear();
+                bestProb = prob;
+                lowestProbCells.add(cell);
+            } else if (comp == 0) {
+                lowestProbCells.add(cell);
+            }
+        }
+        return lowestProbCells;
+    }
+
     @Override
     protected void addBoardConstraint(PBSolver solver)
             throws ContradictionException {
@@ -83,71 +163,549 @@ public class ProbabilitySolver extends MyPBSolver {
         solver.addAtLeast(lits, coeffs, mines);
     }
 
+    /**
+     * Calculate the probability of every closed shore cell and sea cell being
+     * a mine. The models of each frontier component are counted separately
+     * (by the number of mines they contain) and then combined by convolution,
+     * weighting each total by the number of ways the remaining mines fit in
+     * the sea.
+     *
+     * <p>
+     * If the budget runs out before every component has been counted, the
+     * cells of the components left are treated as sea cells, ignoring their
+     * constraints, and the answer is marked as partial.
+     *
+     * @return mapping of cell to the probability that it is a mine. Empty if
+     * the board has no consistent models.
+     */
     public Map<Cell, BigFraction> getProbabilities() {
-        Map<Cell, BigInteger> cellMineCount = new HashMap<>();
+        startBudget();
+        List<FrontierComponent> components = getShoreComponents();
+        List<Cell> seaCells = new ArrayList<>(getSeaCells());
+        List<ComponentModelCounts> counts = getModelCounts(components, seaCells);
+        return getProbabilities(components.subList(0, counts.size()), counts, seaCells);
+    }
+
+    /**
+     * Calculate the probabilities as {@link #getProbabilities()} does, with
+     * fast arithmetic if it is turned on. The model counts of each component
+     * and the number of ways of filling the sea are scaled to at most one and
+     * combined as doubles, so nothing overflows and each term is at least as
+     * accurate as the double it is held in. If every term underflows the
+     * probabilities are worked out exactly instead.
+     *
+     * @return mapping of cell to the probability that it is a mine, within
+     * {@link #FAST_TOLERANCE} of the exact probability. Empty if the board has
+     * no consistent models.
+     */
+    public Map<Cell, Double> getApproximateProbabilities() {
+        startBudget();
+        return getApproximateProbabilitiesWithinBudget();
+    }
+
+    /**
+     * Calculate the probabilities as {@link #getApproximateProbabilities()}
+     * does, spending what is left of the current call's budget rather than
+     * starting a new one. Once the budget has run out only the components
+     * whose counts are cached are counted, the rest being treated as sea.
+     */
+    protected Map<Cell, Double> getApproximateProbabilitiesWithinBudget() {
+        List<FrontierComponent> allComponents = getShoreComponents();
+        List<Cell> seaCells = new ArrayList<>(getSeaCells());
+        List<ComponentModelCounts> counts = getModelCounts(allComponents, seaCells);
+        return getApproximateProbabilities(allComponents.subList(0, counts.size()), counts, seaCells);
+    }
+
+    /**
+     * Combine model counts as {@link #getApproximateProbabilities()} does.
+     *
+     * @param counts the model counts of each component, which need only be
+     *               in proportion to the true counts.
+     */
+    protected Map<Cell, Double> getApproximateProbabilities(List<FrontierComponent> components,
+                                                            List<ComponentModelCounts> counts, List<Cell> seaCells) {
+        if (fastArithmetic) {
+            Map<Cell, Double> probs = getFastProbabilities(components, counts, seaCells);
+            if (probs != null) {
+                return probs;
+            }
+        }
+        Map<Cell, Double> probs = new HashMap<>();
+        getProbabilities(components, counts, seaCells).forEach((cell, prob) -> probs.put(cell, prob.doubleValue()));
+        return probs;
+    }
+
+    private Map<Cell, BigFraction> getProbabilities(List<FrontierComponent> components,
+                                                    List<ComponentModelCounts> counts, List<Cell> seaCells) {
         Map<Cell, BigFraction> probs = new HashMap<>();
+        int seaSize = seaCells.size();
+        BigInteger[] seaModels = seaModels(seaSize);
 
-        var totalModels = BigInteger.ZERO;
-        var totalSeaModels = BigFraction.ZERO;
-        var seaSize = getSeaCells().size();
+        // otherWeights[i][k] is the total weight of the models where
+        // component i has k mines, not counting component i's own models
+        BigInteger[][] otherWeights = new BigInteger[counts.size()][];
+        for (int i = 0; i < counts.size(); i++) {
+            otherWeights[i] = new BigInteger[counts.get(i).getMaxMines() + 1];
+            Arrays.fill(otherWeights[i], BigInteger.ZERO);
+        }
+        // totals[0] is the total number of models, totals[1] is the total
+        // number of sea mines over all models
+        BigInteger[] totals = {BigInteger.ZERO, BigInteger.ZERO};
+        combineModels(counts, seaModels, otherWeights, totals);
 
-        PBSolver solver = generateBaseConstraints();
+        BigInteger totalModels = totals[0];
+        if (totalModels.signum() == 0) {
+            return probs;
+        }
 
-        try {
-            while (solver.isSatisfiable()) {
-                int[] model = solver.model();
-                List<Cell> modelShoreMines = Arrays.stream(model)
-                        .filter(i -> i >= 0)
-                        .mapToObj(this::decodeCellId)
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .collect(Collectors.toList());
-
-                int remainingMinesInModel = mines - modelShoreMines.size();
-
-                BigInteger totalPossibleModels = seaSize > 0 ?
-                        BigIntegerMath.binomial(seaSize, remainingMinesInModel) :
-                        BigInteger.ONE; // One to include the current model
-
-                totalModels = totalModels.add(totalPossibleModels);
-
-                // update mine counts
-                for (Cell cell : modelShoreMines) {
-                    BigInteger currentCellMineCount = cellMineCount.getOrDefault(cell, BigInteger.ZERO);
-                    BigInteger newCellMineCount = currentCellMineCount.add(totalPossibleModels);
-                    cellMineCount.put(cell, newCellMineCount);
+        if (seaSize > 0) {
+            BigFraction seaProb = new BigFraction(totals[1], totalModels.multiply(BigInteger.valueOf(seaSize))).reduce();
+            seaCells.forEach(cell -> probs.put(cell, seaProb));
+        }
+
+        for (int i = 0; i < components.size(); i++) {
+            List<Cell> cells = components.get(i).getCells();
+            ComponentModelCounts componentCounts = counts.get(i);
+            for (int j = 0; j < cells.size(); j++) {
+                BigInteger cellMineCount = BigInteger.ZERO;
+                for (int k = 0; k <= componentCounts.getMaxMines(); k++) {
+                    cellMineCount = cellMineCount.add(componentCounts.getCellMines(j, k).multiply(otherWeights[i][k]));
                 }
+                probs.put(cells.get(j), new BigFraction(cellMineCount, totalModels).reduce());
+            }
+        }
 
-                // update sea probability
-                BigFraction currentModelSeaProb = seaSize > 0 ?
-                        new BigFraction(remainingMinesInModel, seaSize) :
-                        BigFraction.ZERO;
+        return probs;
+    }
 
-                totalSeaModels = totalSeaModels.add(currentModelSeaProb.multiply(totalPossibleModels));
+    /**
+     * Combine the components through their generating functions. The model
+     * counts of component i by mine count are the coefficients of a polynomial
+     * M_i(x), so the product of the polynomials counts the frontier's models
+     * by mine count, and each of its terms is weighted by the number of ways
+     * the remaining mines fit in the sea. The weight of everything but
+     * component i comes from the product of the components before it and a
+     * running sum over the components after it. Each polynomial is only kept
+     * over the mine totals it can reach, so the work grows with the sum of
+     * the components' mine ranges times the spread of the totals, rather than
+     * with the product of the components' mine ranges.
+     *
+     * @param seaModels    the number of ways of placing each number of mines
+     *                     in the sea.
+     * @param otherWeights see {@link #getProbabilities()}.
+     * @param totals       see {@link #getProbabilities()}.
+     */
+    private void combineModels(List<ComponentModelCounts> counts, BigInteger[] seaModels,
+                               BigInteger[][] otherWeights, BigInteger[] totals) {
+        int n = counts.size();
+        int[] fewest = new int[n];
+        int[] most = new int[n];
+        for (int i = 0; i < n; i++) {
+            ComponentModelCounts componentCounts = counts.get(i);
+            fewest[i] = 0;
+            while (fewest[i] <= componentCounts.getMaxMines() && componentCounts.getModels(fewest[i]).signum() == 0) {
+                fewest[i]++;
+            }
+            most[i] = componentCounts.getMaxMines();
+            while (most[i] >= fewest[i] && componentCounts.getModels(most[i]).signum() == 0) {
+                most[i]--;
+            }
+        }
+        int[][] range = mineRanges(fewest, most);
+        if (range == null) {
+            return;
+        }
+        int[] low = range[0];
+        int[] high = range[1];
 
-                // Remove current solution from possible solutions
-                for (int i = 0; i < model.length; i++) {
-                    model[i] *= -1;
+        // after[i][t - low[i]] is the weight of components i onwards and the
+        // sea when the components before i hold t mines
+        BigInteger[][] after = new BigInteger[n + 1][];
+        after[n] = new BigInteger[high[n] - low[n] + 1];
+        for (int t = low[n]; t <= high[n]; t++) {
+            after[n][t - low[n]] = mines - t < seaModels.length ? seaModels[mines - t] : BigInteger.ZERO;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            after[i] = zeros(high[i] - low[i] + 1);
+            for (int k = fewest[i]; k <= most[i]; k++) {
+                BigInteger models = counts.get(i).getModels(k);
+                for (int t = low[i]; t <= high[i] && t + k <= high[i + 1]; t++) {
+                    after[i][t - low[i]] = after[i][t - low[i]].add(models.multiply(after[i + 1][t + k - low[i + 1]]));
                 }
-                IVecInt block = new VecInt(model);
-                solver.addBlockingClause(block);
             }
-        } catch (TimeoutException | ContradictionException e) {
-            e.printStackTrace();
         }
 
-        solver.reset();
+        // before[t - low[i]] is the number of models of the components before
+        // i with t mines
+        BigInteger[] before = {BigInteger.ONE};
+        for (int i = 0; i < n; i++) {
+            BigInteger[] next = zeros(high[i + 1] - low[i + 1] + 1);
+            for (int k = fewest[i]; k <= most[i]; k++) {
+                BigInteger models = counts.get(i).getModels(k);
+                BigInteger others = BigInteger.ZERO;
+                for (int t = low[i]; t <= high[i] && t + k <= high[i + 1]; t++) {
+                    BigInteger ways = before[t - low[i]];
+                    if (ways.signum() != 0) {
+                        others = others.add(ways.multiply(after[i + 1][t + k - low[i + 1]]));
+                        next[t + k - low[i + 1]] = next[t + k - low[i + 1]].add(ways.multiply(models));
+                    }
+                }
+                otherWeights[i][k] = others;
+            }
+            before = next;
+        }
 
-        if (seaSize > 0) {
-            BigFraction seaProb = totalSeaModels.divide(totalModels).reduce();
-            getSeaCells().forEach(cell -> probs.put(cell, seaProb));
+        for (int t = low[n]; t <= high[n]; t++) {
+            BigInteger models = before[t - low[n]].multiply(after[n][t - low[n]]);
+            totals[0] = totals[0].add(models);
+            totals[1] = totals[1].add(models.multiply(BigInteger.valueOf(mines - t)));
         }
+    }
 
-        for (Cell cell : getClosedShoreCells()) {
-            BigInteger currentCellMineCount = cellMineCount.getOrDefault(cell, BigInteger.ZERO);
-            probs.put(cell, new BigFraction(currentCellMineCount, totalModels).reduce());
+    /**
+     * Work out how many mines the components before each component can hold
+     * between them, given the fewest and most each component can hold.
+     *
+     * @return the lowest and highest totals before each of the n components
+     * and after the last one, capped at the number of mines. Null if the
+     * components cannot hold few enough mines, or some have no models.
+     */
+    private int[][] mineRanges(int[] fewest, int[] most) {
+        int n = fewest.length;
+        int[] low = new int[n + 1];
+        int[] high = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            if (fewest[i] > most[i]) {
+                return null;
+            }
+            low[i + 1] = low[i] + fewest[i];
+            high[i + 1] = Math.min(high[i] + most[i], mines);
+            if (low[i + 1] > mines) {
+                return null;
+            }
+        }
+        return new int[][]{low, high};
+    }
+
+    private static BigInteger[] zeros(int length) {
+        BigInteger[] values = new BigInteger[length];
+        Arrays.fill(values, BigInteger.ZERO);
+        return values;
+    }
+
+    /**
+     * @return the number of ways of placing 0 up to (at most) every mine in
+     * the sea, built up one mine at a time.
+     */
+    private BigInteger[] seaModels(int seaSize) {
+        BigInteger[] seaModels = new BigInteger[Math.min(seaSize, mines) + 1];
+        seaModels[0] = BigInteger.ONE;
+        for (int r = 1; r < seaModels.length; r++) {
+            seaModels[r] = seaModels[r - 1].multiply(BigInteger.valueOf(seaSize - r + 1))
+                    .divide(BigInteger.valueOf(r));
+        }
+        return seaModels;
+    }
+
+    /**
+     * @return the number of ways of placing each number of mines in the sea,
+     * divided by the largest of them.
+     */
+    private double[] seaWeights(int seaSize) {
+        long key = (long) seaSize << 32 | mines;
+        double[] weights = SEA_WEIGHTS.get(key);
+        if (weights != null) {
+            return weights;
+        }
+        // Built in log space, where C(n, r) = C(n, r - 1) * (n - r + 1) / r
+        weights = new double[Math.min(seaSize, mines) + 1];
+        double largest = 0;
+        for (int r = 1; r < weights.length; r++) {
+            weights[r] = weights[r - 1] + Math.log(seaSize - r + 1) - Math.log(r);
+            largest = Math.max(largest, weights[r]);
+        }
+        for (int r = 0; r < weights.length; r++) {
+            weights[r] = Math.exp(weights[r] - largest);
+        }
+        if (SEA_WEIGHTS.size() >= SEA_WEIGHTS_CAPACITY) {
+            SEA_WEIGHTS.clear();
+        }
+        SEA_WEIGHTS.put(key, weights);
+        return weights;
+    }
+
+    /**
+     * @return {@code value / scale} as a double, for {@code value <= scale},
+     * however large the two are.
+     */
+    private static double ratio(BigInteger value, BigInteger scale) {
+        int shift = Math.max(0, scale.bitLength() - DOUBLE_BITS);
+        return value.shiftRight(shift).doubleValue() / scale.shiftRight(shift).doubleValue();
+    }
+
+    /**
+     * @return the probabilities worked out with doubles, or null if every
+     * term underflowed.
+     */
+    private Map<Cell, Double> getFastProbabilities(List<FrontierComponent> components,
+                                                   List<ComponentModelCounts> counts, List<Cell> seaCells) {
+        int seaSize = seaCells.size();
+        double[] seaWeights = seaWeights(seaSize);
+
+        // Each component's counts divided by its largest model count, which
+        // cancels out of every probability
+        BigInteger[] largest = new BigInteger[counts.size()];
+        double[][] models = scaledModels(counts, largest);
+
+        double[][] otherWeights = new double[counts.size()][];
+        for (int i = 0; i < counts.size(); i++) {
+            otherWeights[i] = new double[models[i].length];
+        }
+        double[] totals = new double[2];
+        combineFastModels(models, seaWeights, otherWeights, totals);
+        double totalModels = totals[0];
+        if (!(totalModels > 0) || Double.isInfinite(totalModels)) {
+            return null;
         }
 
+        Map<Cell, Double> probs = new HashMap<>();
+        if (seaSize > 0) {
+            double seaProb = totals[1] / (totalModels * seaSize);
+            seaCells.forEach(cell -> probs.put(cell, seaProb));
+        }
+        for (int i = 0; i < components.size(); i++) {
+            List<Cell> cells = components.get(i).getCells();
+            ComponentModelCounts componentCounts = counts.get(i);
+            for (int j = 0; j < cells.size(); j++) {
+                double cellMineCount = 0;
+                for (int k = 0; k <= componentCounts.getMaxMines(); k++) {
+                    if (otherWeights[i][k] != 0) {
+                        cellMineCount += ratio(componentCounts.getCellMines(j, k), largest[i]) * otherWeights[i][k];
+                    }
+                }
+                probs.put(cells.get(j), cellMineCount / totalModels);
+            }
+        }
         return probs;
     }
+
+    /**
+     * @param largest filled in with each component's largest model count.
+     * @return each component's model counts divided by its largest.
+     */
+    private static double[][] scaledModels(List<ComponentModelCounts> counts, BigInteger[] largest) {
+        double[][] models = new double[counts.size()][];
+        for (int i = 0; i < counts.size(); i++) {
+            ComponentModelCounts componentCounts = counts.get(i);
+            largest[i] = BigInteger.ONE;
+            for (int k = 0; k <= componentCounts.getMaxMines(); k++) {
+                largest[i] = largest[i].max(componentCounts.getModels(k));
+            }
+            models[i] = new double[componentCounts.getMaxMines() + 1];
+            for (int k = 0; k < models[i].length; k++) {
+                models[i][k] = ratio(componentCounts.getModels(k), largest[i]);
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Work out the total number of models of a board made of the given
+     * components and sea, i.e. of ways of placing every mine so that each
+     * open cell sees its number. Boards with the same number of mines can be
+     * compared through their totals, e.g. to find how likely a closed cell is
+     * to turn out to have each number.
+     *
+     * @param counts  the exact model counts of each component.
+     * @param seaSize the number of sea cells.
+     * @return the natural log of the number of models, negative infinity if
+     * there are none.
+     */
+    protected double logModels(List<ComponentModelCounts> counts, int seaSize) {
+        if (fastArithmetic) {
+            BigInteger[] largest = new BigInteger[counts.size()];
+            double[][] models = scaledModels(counts, largest);
+            double[][] otherWeights = new double[counts.size()][];
+            for (int i = 0; i < counts.size(); i++) {
+                otherWeights[i] = new double[models[i].length];
+            }
+            double[] totals = new double[2];
+            combineFastModels(models, seaWeights(seaSize), otherWeights, totals);
+            if (totals[0] > 0 && !Double.isInfinite(totals[0])) {
+                double log = Math.log(totals[0]) + logLargestSeaModels(seaSize);
+                for (BigInteger value : largest) {
+                    log += log(value);
+                }
+                return log;
+            }
+        }
+        BigInteger[][] otherWeights = new BigInteger[counts.size()][];
+        for (int i = 0; i < counts.size(); i++) {
+            otherWeights[i] = zeros(counts.get(i).getMaxMines() + 1);
+        }
+        BigInteger[] totals = {BigInteger.ZERO, BigInteger.ZERO};
+        combineModels(counts, seaModels(seaSize), otherWeights, totals);
+        return totals[0].signum() == 0 ? Double.NEGATIVE_INFINITY : log(totals[0]);
+    }
+
+    /**
+     * @return the natural log of the largest number of ways of placing mines
+     * in the sea, which {@link #seaWeights} are divided by.
+     */
+    private double logLargestSeaModels(int seaSize) {
+        double log = 0;
+        double largest = 0;
+        for (int r = 1; r <= Math.min(seaSize, mines); r++) {
+            log += Math.log(seaSize - r + 1) - Math.log(r);
+            largest = Math.max(largest, log);
+        }
+        return largest;
+    }
+
+    /**
+     * @return the natural log of a positive value, however large.
+     */
+    private static double log(BigInteger value) {
+        int shift = Math.max(0, value.bitLength() - DOUBLE_BITS);
+        return Math.log(value.shiftRight(shift).doubleValue()) + shift * Math.log(2);
+    }
+
+    /**
+     * {@link #combineModels} with scaled double weights.
+     */
+    private void combineFastModels(double[][] models, double[] seaWeights, double[][] otherWeights,
+                                   double[] totals) {
+        int n = models.length;
+        int[] fewest = new int[n];
+        int[] most = new int[n];
+        for (int i = 0; i < n; i++) {
+            fewest[i] = 0;
+            while (fewest[i] < models[i].length && models[i][fewest[i]] == 0) {
+                fewest[i]++;
+            }
+            most[i] = models[i].length - 1;
+            while (most[i] >= fewest[i] && models[i][most[i]] == 0) {
+                most[i]--;
+            }
+        }
+        int[][] range = mineRanges(fewest, most);
+        if (range == null) {
+            return;
+        }
+        int[] low = range[0];
+        int[] high = range[1];
+
+        double[][] after = new double[n + 1][];
+        after[n] = new double[high[n] - low[n] + 1];
+        for (int t = low[n]; t <= high[n]; t++) {
+            after[n][t - low[n]] = mines - t < seaWeights.length ? seaWeights[mines - t] : 0;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            after[i] = new double[high[i] - low[i] + 1];
+            for (int k = fewest[i]; k <= most[i]; k++) {
+                for (int t = low[i]; t <= high[i] && t + k <= high[i + 1]; t++) {
+                    after[i][t - low[i]] += models[i][k] * after[i + 1][t + k - low[i + 1]];
+                }
+            }
+        }
+
+        double[] before = {1};
+        for (int i = 0; i < n; i++) {
+            double[] next = new double[high[i + 1] - low[i + 1] + 1];
+            for (int k = fewest[i]; k <= most[i]; k++) {
+                double others = 0;
+                for (int t = low[i]; t <= high[i] && t + k <= high[i + 1]; t++) {
+                    others += before[t - low[i]] * after[i + 1][t + k - low[i + 1]];
+                    next[t + k - low[i + 1]] += before[t - low[i]] * models[i][k];
+                }
+                otherWeights[i][k] = others;
+            }
+            before = next;
+        }
+
+        for (int t = low[n]; t <= high[n]; t++) {
+            double weight = before[t - low[n]] * after[n][t - low[n]];
+            totals[0] += weight;
+            totals[1] += weight * (mines - t);
+        }
+    }
+
+    /**
+     * Count the models of each component in turn while the budget lasts.
+     *
+     * @param seaCells the sea cells, to which the cells of the components
+     *                 left uncounted are added.
+     * @return the counts of the components counted, which are always the
+     * first ones.
+     */
+    private List<ComponentModelCounts> getModelCounts(List<FrontierComponent> components, List<Cell> seaCells) {
+        List<ComponentModelCounts> counts = new ArrayList<>();
+        try {
+            for (FrontierComponent component : components) {
+                counts.add(getModelCounts(component));
+            }
+        } catch (BudgetExhaustedException e) {
+            for (FrontierComponent component : components.subList(counts.size(), components.size())) {
+                seaCells.addAll(component.getCells());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return the component's model counts, from the cache if possible.
+     */
+    protected ComponentModelCounts getModelCounts(FrontierComponent component) {
+        return modelCountsCache == null
+                ? countModels(component)
+                : modelCountsCache.get(component, () -> countModels(component));
+    }
+
+    /**
+     * Count the models of a single component by enumerating them, blocking
+     * each model once it has been found.
+     *
+     * @throws BudgetExhaustedException if the budget runs out first, since a
+     *                                  partial count is of no use.
+     */
+    protected ComponentModelCounts countModels(FrontierComponent component) {
+        List<Cell> cells = component.getCells();
+        ComponentModelCounts counts = new ComponentModelCounts(cells.size());
+        PBSolver solver = generateComponentConstraints(component);
+        try {
+            while (true) {
+                if (!spendBudget(1)) {
+                    throw new BudgetExhaustedException();
+                }
+                solver.setTimeoutMs(millisLeft());
+                if (!solver.isSatisfiable()) {
+                    break;
+                }
+                countModelFound();
+                int[] block = new int[cells.size()];
+                List<Integer> mineCells = new ArrayList<>();
+                for (int i = 0; i < cells.size(); i++) {
+                    int lit = encodeCellId(cells.get(i));
+                    if (solver.model(lit)) {
+                        mineCells.add(i);
+                        block[i] = -lit;
+                    } else {
+                        block[i] = lit;
+                    }
+                }
+                counts.addModel(mineCells.stream().mapToInt(i -> i).toArray());
+
+                // Remove current solution from possible solutions
+                solver.addBlockingClause(new VecInt(block));
+            }
+        } catch (ContradictionException e) {
+            // Blocking the final model left the solver trivially unsatisfiable
+        } catch (TimeoutException e) {
+            markPartial();
+            throw new BudgetExhaustedException();
+        } finally {
+            solver.reset();
+        }
+        return counts;
+    }
 }
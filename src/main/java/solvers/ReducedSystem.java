@@ -0,0 +1,91 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What is left of the frontier's linear system once {@link GaussianSolver} has
+ * row-reduced it and taken out every cell it could settle. The rows are
+ * integer equations over the undetermined shore cells and, if the sea is
+ * undetermined, one extra column counting the mines in the sea. Together with
+ * the known cells they have exactly the same solutions as the board, so they
+ * can be handed to the PB solver in place of the open cell constraints (see
+ * {@link MyPBSolver#getKnownCells(ReducedSystem)}).
+ * <p>
+ * Rows are packed one after the other in a single array, each row holding one
+ * coefficient per column followed by the row's value.
+ */
+public class ReducedSystem {
+
+    private final List<Cell> cells;
+    private final List<Cell> seaCells;
+    private final int columns;
+    private final int rowCount;
+    private final long[] rows;
+    private final Map<Cell, Boolean> knownCells;
+
+    /**
+     * @param cells      the cells of the shore columns, in column order.
+     * @param seaCells   the sea cells if the last column counts the mines in
+     *                   the sea, otherwise empty.
+     * @param rowCount   number of rows.
+     * @param rows       the packed rows, {@code columns + 1} values each.
+     * @param knownCells the cells settled during the reduction.
+     */
+    ReducedSystem(List<Cell> cells, List<Cell> seaCells, int rowCount, long[] rows, Map<Cell, Boolean> knownCells) {
+        this.cells = Collections.unmodifiableList(cells);
+        this.seaCells = Collections.unmodifiableList(seaCells);
+        this.columns = cells.size() + (seaCells.isEmpty() ? 0 : 1);
+        this.rowCount = rowCount;
+        this.rows = rows;
+        this.knownCells = Collections.unmodifiableMap(knownCells);
+    }
+
+    /**
+     * @return the undetermined shore cells, one per column.
+     */
+    public List<Cell> getCells() {
+        return cells;
+    }
+
+    /**
+     * @return the sea cells if the sea is undetermined, in which case the last
+     * column counts the number of mines in the sea. Empty otherwise.
+     */
+    public List<Cell> getSeaCells() {
+        return seaCells;
+    }
+
+    public boolean hasSeaColumn() {
+        return !seaCells.isEmpty();
+    }
+
+    public int getColumnCount() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getCoefficient(int row, int column) {
+        return rows[row * (columns + 1) + column];
+    }
+
+    /**
+     * @return the right hand side of the row.
+     */
+    public long getValue(int row) {
+        return rows[row * (columns + 1) + columns];
+    }
+
+    /**
+     * @return the cells settled by the reduction, sea cells included.
+     */
+    public Map<Cell, Boolean> getKnownCells() {
+        return knownCells;
+    }
+}
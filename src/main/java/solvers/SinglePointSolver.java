@@ -3,8 +3,10 @@ package main.java.solvers;
 import main.java.Cell;
 import main.java.CellState;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A class that uses the single point algorithm, see
@@ -33,44 +35,59 @@ public class SinglePointSolver extends AbstractSolver {
     }
 
     public List<Cell> getMineCells() {
-        List<Cell> haveSurroundingMineCells = cellMatrixToStream()
-                .filter(c -> c.getState() == CellState.OPEN)
-                .filter(this::hasSinglePointMinePattern)
-                .collect(Collectors.toList());
+        byte[] states = snapshotStates();
+        List<Cell> haveSurroundingMineCells = new ArrayList<>();
+        for (int id = 0; id < states.length; id++) {
+            if (isOpen(states[id]) && hasSinglePointMinePattern(states, id)) {
+                haveSurroundingMineCells.add(cellAt(id));
+            }
+        }
 
-        // Set so duplicates are ignored
         return getAllNeighbouringClosedCells(haveSurroundingMineCells);
     }
 
     public List<Cell> getSafeCells() {
-        List<Cell> haveSurroundingSafeCells = cellMatrixToStream()
-                .filter(c -> c.getState() == CellState.OPEN)
-                .filter(this::hasSinglePointSafePattern)
-                .collect(Collectors.toList());
+        byte[] states = snapshotStates();
+        List<Cell> haveSurroundingSafeCells = new ArrayList<>();
+        for (int id = 0; id < states.length; id++) {
+            if (isOpen(states[id]) && hasSinglePointSafePattern(states, id)) {
+                haveSurroundingSafeCells.add(cellAt(id));
+            }
+        }
 
-        // Set so duplicates are ignored
         return getAllNeighbouringClosedCells(haveSurroundingSafeCells);
     }
 
     public List<Cell> getAllNeighbouringClosedCells(List<Cell> knownCells) {
-        Set<Cell> safeCells = new HashSet<>();
+        // Array of added cells so duplicates are ignored
+        boolean[] added = new boolean[width * height];
+        List<Cell> closedCells = new ArrayList<>();
         for (Cell cell : knownCells) {
-            safeCells.addAll(
-                    getNeighbours(cell.getX(), cell.getY()).stream()
-                            .filter(c -> c.getState() == CellState.CLOSED)
-                            .collect(Collectors.toList())
-            );
+            int id = neighbourIndex.id(cell.getX(), cell.getY());
+            for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+                int neighbour = neighbourIndex.neighbour(i);
+                Cell c = cellAt(neighbour);
+                if (!added[neighbour] && c.getState() == CellState.CLOSED) {
+                    added[neighbour] = true;
+                    closedCells.add(c);
+                }
+            }
         }
-        return new ArrayList<>(safeCells);
+        return closedCells;
     }
 
-    private boolean hasSinglePointSafePattern(final Cell cell) {
-        int flagCount = calcFlaggedNeighbours(cell.getX(), cell.getY());
-        return cell.getNumber() == flagCount;
+    private boolean hasSinglePointSafePattern(final byte[] states, final int id) {
+        int flagCount = 0;
+        for (int i = neighbourIndex.start(id); i < neighbourIndex.end(id); i++) {
+            if (states[neighbourIndex.neighbour(i)] == SNAPSHOT_FLAGGED) {
+                flagCount++;
+            }
+        }
+        return states[id] == flagCount;
     }
 
-    private boolean hasSinglePointMinePattern(final Cell cell) {
-        int closedCount = calcClosedNeighbours(cell.getX(), cell.getY());
-        return cell.getNumber() == closedCount;
+    private boolean hasSinglePointMinePattern(final byte[] states, final int id) {
+        int closedCount = countNeighbours(states, id, false);
+        return states[id] == closedCount;
     }
-}
\ No newline at end of file
+}
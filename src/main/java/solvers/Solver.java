@@ -4,7 +4,7 @@ import main.java.Cell;
 
 import java.util.Map;
 
-public interface Solver {
+public interface Solver extends AutoCloseable {
     /**
      * Return a mapping of cells to if they are a mine.
      * <p>
@@ -13,4 +13,39 @@ public interface Solver {
      * @return Mapping of cell to Boolean, true means mine and false means safe.
      */
     Map<Cell, Boolean> getKnownCells();
+
+    /**
+     * Choose a cell to open when no cell is known to be safe.
+     *
+     * @return the cell to guess, or null if the solver has no guess and the
+     * player should choose one itself.
+     */
+    default Cell getBestGuess() {
+        return null;
+    }
+
+    /**
+     * Limit how much each later call may spend. A solver that runs out of
+     * budget returns what it has found so far instead of the full answer.
+     * Solvers without a way of stopping early ignore the budget.
+     */
+    default void setBudget(SolverBudget budget) {
+    }
+
+    /**
+     * @return whether the last call ran out of budget, so its answer may be
+     * missing known cells or hold approximate probabilities. The cells it did
+     * return are still known.
+     */
+    default boolean isPartial() {
+        return false;
+    }
+
+    /**
+     * Stop any worker threads the solver keeps between calls. The solver may
+     * still be used afterwards, starting them again if it needs them.
+     */
+    @Override
+    default void close() {
+    }
 }
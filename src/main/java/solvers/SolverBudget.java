@@ -0,0 +1,69 @@
+package main.java.solvers;
+
+/**
+ * How much a solver may spend on a single call before it gives up and returns
+ * the best answer it has so far (see {@link Solver#isPartial()}).
+ * <p>
+ * A budget can limit the wall time of a call, the number of steps it takes,
+ * or both. A step is one SAT call (a probe, or a model found while
+ * enumerating), or one residual state visited by {@link ModelCountingSolver}.
+ * Solvers that only ever do a small amount of work, such as
+ * {@link SinglePointSolver}, ignore their budget.
+ */
+public final class SolverBudget {
+
+    public static final SolverBudget UNLIMITED = new SolverBudget(0, 0);
+
+    private final long timeLimitMillis;
+    private final long stepLimit;
+
+    /**
+     * @param timeLimitMillis wall time allowed for a call, 0 for no limit.
+     * @param stepLimit       steps allowed for a call, 0 for no limit.
+     */
+    public SolverBudget(long timeLimitMillis, long stepLimit) {
+        if (timeLimitMillis < 0 || stepLimit < 0) {
+            throw new IllegalArgumentException("Budget limits cannot be negative");
+        }
+        this.timeLimitMillis = timeLimitMillis;
+        this.stepLimit = stepLimit;
+    }
+
+    public static SolverBudget ofMillis(long timeLimitMillis) {
+        return new SolverBudget(timeLimitMillis, 0);
+    }
+
+    public static SolverBudget ofSteps(long stepLimit) {
+        return new SolverBudget(0, stepLimit);
+    }
+
+    public boolean hasTimeLimit() {
+        return timeLimitMillis > 0;
+    }
+
+    public boolean hasStepLimit() {
+        return stepLimit > 0;
+    }
+
+    public boolean isUnlimited() {
+        return !hasTimeLimit() && !hasStepLimit();
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public long getStepLimit() {
+        return stepLimit;
+    }
+
+    @Override
+    public String toString() {
+        if (isUnlimited()) {
+            return "unlimited";
+        }
+        return (hasTimeLimit() ? timeLimitMillis + " ms" : "")
+                + (hasTimeLimit() && hasStepLimit() ? ", " : "")
+                + (hasStepLimit() ? stepLimit + " steps" : "");
+    }
+}
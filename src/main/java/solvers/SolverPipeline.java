@@ -0,0 +1,244 @@
+package main.java.solvers;
+
+import main.java.Cell;
+import main.java.CellState;
+
+import java.util.*;
+
+/**
+ * Runs the solvers as tiers, cheapest first, and only moves on to a more
+ * expensive tier when the cheaper ones make no progress.
+ * <p>
+ * The pipeline remembers, for each frontier component, the cheapest tier that
+ * could still say something about it. A component that a tier has already
+ * failed on is not given to that tier again while it stays the same, and once
+ * every component is past a tier that tier is skipped altogether, so a
+ * position that needed the PB solver does not go back through the single
+ * point, pattern, subset and Gaussian solvers for nothing.
+ * <p>
+ * The tiers each component has failed on are kept between calls, so a
+ * pipeline must only ever be used for one game.
+ * <p>
+ * The pipeline's budget covers every tier of a call. A tier that runs out of
+ * budget has not failed on the components it did not settle, so they are
+ * given to it again on the next call.
+ */
+public class SolverPipeline extends AbstractSolver {
+
+    public enum Tier {
+        SINGLE_POINT,
+        PATTERN,
+        SUBSET,
+        GAUSSIAN,
+        LOCAL_PB,
+        GLOBAL_PB,
+        PROBABILITY
+    }
+
+    private final SinglePointSolver singlePointSolver;
+    private final PatternSolver patternSolver;
+    private final SubsetSolver subsetSolver;
+    private final GaussianSolver gaussianSolver;
+    private final MyPBSolver pbSolver;
+    private final ModelCountingSolver probabilitySolver;
+    // The cheapest tier that has not yet failed on each current component
+    private Map<ComponentKey, Tier> floors;
+    private final Map<Tier, Integer> settledComponents;
+    private Tier lastTier;
+
+    public SolverPipeline(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+        this.singlePointSolver = new SinglePointSolver(cells, width, height, mines);
+        this.patternSolver = new PatternSolver(cells, width, height, mines);
+        this.subsetSolver = new SubsetSolver(cells, width, height, mines);
+        this.gaussianSolver = new GaussianSolver(cells, width, height, mines);
+        this.pbSolver = new MyPBSolver(cells, width, height, mines);
+        this.probabilitySolver = new ModelCountingSolver(cells, width, height, mines);
+        this.probabilitySolver.setFastArithmetic(true);
+        this.floors = new HashMap<>();
+        this.settledComponents = new EnumMap<>(Tier.class);
+    }
+
+    /**
+     * Run the tiers in order until one of them finds a known cell.
+     *
+     * @return the known cells found by the cheapest tier to find any. Empty
+     * if the budget ran out before any tier found one.
+     */
+    public Map<Cell, Boolean> getKnownCells() {
+        startBudget();
+        List<FrontierComponent> components = getShoreComponents();
+        List<ComponentKey> keys = new ArrayList<>();
+        Map<ComponentKey, Tier> current = new HashMap<>();
+        Map<Cell, Integer> componentOfCell = new HashMap<>();
+        Tier start = Tier.GLOBAL_PB;
+        for (int i = 0; i < components.size(); i++) {
+            FrontierComponent component = components.get(i);
+            ComponentKey key = new ComponentKey(component);
+            Tier floor = floors.getOrDefault(key, Tier.SINGLE_POINT);
+            keys.add(key);
+            current.put(key, floor);
+            if (floor.compareTo(start) < 0) {
+                start = floor;
+            }
+            for (Cell cell : component.getCells()) {
+                componentOfCell.put(cell, i);
+            }
+        }
+        // Forget the components that have changed
+        floors = current;
+
+        for (Tier tier : Tier.values()) {
+            if (tier.compareTo(start) < 0 || tier == Tier.PROBABILITY) {
+                continue;
+            }
+            if (!spendBudget(0)) {
+                break;
+            }
+            Map<Cell, Boolean> results = runTier(tier, components, keys);
+            boolean cutShort = isPartial();
+            boolean[] settled = new boolean[components.size()];
+            for (Cell cell : results.keySet()) {
+                Integer component = componentOfCell.get(cell);
+                if (component != null) {
+                    settled[component] = true;
+                }
+            }
+            for (int i = 0; i < components.size(); i++) {
+                ComponentKey key = keys.get(i);
+                if (settled[i]) {
+                    settledComponents.merge(tier, 1, Integer::sum);
+                } else if (floors.get(key).compareTo(tier) <= 0 && tier != Tier.GLOBAL_PB && !cutShort) {
+                    floors.put(key, Tier.values()[tier.ordinal() + 1]);
+                }
+            }
+            if (!results.isEmpty()) {
+                lastTier = tier;
+                return results;
+            }
+            if (cutShort) {
+                break;
+            }
+        }
+        lastTier = null;
+        return new HashMap<>();
+    }
+
+    private Map<Cell, Boolean> runTier(Tier tier, List<FrontierComponent> components, List<ComponentKey> keys) {
+        boolean budgeted = tier == Tier.LOCAL_PB || tier == Tier.GLOBAL_PB;
+        if (budgeted) {
+            // Only the PB tiers can take long enough to need the budget
+            pbSolver.setBudget(remainingBudget());
+            pbSolver.startBudget();
+        }
+        Map<Cell, Boolean> known = switch (tier) {
+            case SINGLE_POINT -> singlePointSolver.getKnownCells();
+            case PATTERN -> patternSolver.getKnownCells();
+            case SUBSET -> subsetSolver.getKnownCells();
+            case GAUSSIAN -> gaussianSolver.getKnownCells();
+            case LOCAL_PB -> {
+                // Only the components the PB solver has not already failed on
+                Map<Cell, Boolean> results = new HashMap<>();
+                for (int i = 0; i < components.size(); i++) {
+                    if (floors.get(keys.get(i)).compareTo(Tier.LOCAL_PB) <= 0) {
+                        results.putAll(pbSolver.getKnownCells(components.get(i)));
+                    }
+                }
+                yield results;
+            }
+            // The reduced rows mention fewer cells than the open cell constraints
+            case GLOBAL_PB -> pbSolver.getKnownCells(gaussianSolver.reduce());
+            default -> throw new IllegalArgumentException("Not a deduction tier: " + tier);
+        };
+        if (budgeted) {
+            spendBudget(pbSolver.stepsTaken());
+            if (pbSolver.isPartial()) {
+                markPartial();
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Choose a cell to guess when no tier can find a known cell.
+     *
+     * @return the cell least likely to be a mine, or null if there are no
+     * closed cells left. If the budget runs out the probabilities are
+     * approximate and the answer is marked as partial.
+     */
+    @Override
+    public Cell getBestGuess() {
+        startBudget();
+        probabilitySolver.setBudget(getBudget());
+        Cell cell = probabilitySolver.getBestCell();
+        if (probabilitySolver.isPartial()) {
+            markPartial();
+        }
+        lastTier = Tier.PROBABILITY;
+        settledComponents.merge(Tier.PROBABILITY, 1, Integer::sum);
+        return cell;
+    }
+
+    /**
+     * @return the tier that made the last move, or null if the last call to
+     * {@link #getKnownCells()} found nothing.
+     */
+    public Tier getLastTier() {
+        return lastTier;
+    }
+
+    /**
+     * @return how many times each tier has settled a frontier component (found
+     * a known cell in it), plus the number of guesses under
+     * {@link Tier#PROBABILITY}.
+     */
+    public Map<Tier, Integer> getSettledComponents() {
+        return Collections.unmodifiableMap(settledComponents);
+    }
+
+    public MyPBSolver getPBSolver() {
+        return pbSolver;
+    }
+
+    @Override
+    public void close() {
+        pbSolver.close();
+        probabilitySolver.close();
+    }
+
+    /**
+     * Identifies a component by its place on the board as well as its shape,
+     * and by which of its cells are flagged since the cheaper tiers count
+     * flags as mines.
+     */
+    private static final class ComponentKey {
+        private final ComponentSignature signature;
+        private final int x;
+        private final int y;
+        private final BitSet flagged;
+
+        private ComponentKey(FrontierComponent component) {
+            List<Cell> cells = component.getCells();
+            this.signature = component.getSignature();
+            this.x = cells.get(0).getX();
+            this.y = cells.get(0).getY();
+            this.flagged = new BitSet(cells.size());
+            for (int i = 0; i < cells.size(); i++) {
+                flagged.set(i, cells.get(i).getState() == CellState.FLAGGED);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ComponentKey that = (ComponentKey) o;
+            return x == that.x && y == that.y && signature.equals(that.signature) && flagged.equals(that.flagged);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(signature, x, y, flagged);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package main.java.solvers;
+
+import main.java.Cell;
+
+import java.util.*;
+
+/**
+ * A solver that reasons about pairs of constraints by set difference. If the
+ * closed cells of constraint A are a subset of those of constraint B, then
+ * the cells of B that are not in A hold exactly {@code value(B) - value(A)}
+ * mines. Such differences are added as new constraints, and constraints with
+ * a value of zero (all safe) or equal to their size (all mines) give known
+ * cells, which are then taken out of every other constraint. This repeats
+ * until nothing changes.
+ * <p>
+ * Every constraint, including the derived ones, lies within the 3x3
+ * neighbourhood of an open cell, so each is held as a 9 bit mask over that
+ * window. Subset tests between nearby windows are a table lookup to move one
+ * mask into the other's window and a bitwise and, so the work grows with the
+ * size of the frontier rather than the size of the board.
+ * <p>
+ * Flagged cells are taken to be mines.
+ */
+public class SubsetSolver extends AbstractSolver {
+
+    private static final int WINDOW_BITS = 9;
+    private static final int WINDOW_MASK = (1 << WINDOW_BITS) - 1;
+    // Windows further apart than this have no cells in common
+    private static final int REACH = 2;
+    private static final int OFFSETS = 2 * REACH + 1;
+    // SHIFT[offset][mask] is the mask moved into a window offset by (dx, dy)
+    // from its own, where offset = (dx + REACH) * OFFSETS + dy + REACH, or -1
+    // if some of its cells fall outside that window
+    private static final int[][] SHIFT = new int[OFFSETS * OFFSETS][1 << WINDOW_BITS];
+
+    static {
+        for (int dx = -REACH; dx <= REACH; dx++) {
+            for (int dy = -REACH; dy <= REACH; dy++) {
+                int[] shift = SHIFT[(dx + REACH) * OFFSETS + dy + REACH];
+                for (int mask = 0; mask <= WINDOW_MASK; mask++) {
+                    int shifted = 0;
+                    for (int bit = 0; bit < WINDOW_BITS && shifted >= 0; bit++) {
+                        if ((mask >> bit & 1) == 0) {
+                            continue;
+                        }
+                        int i = bit / 3 + dx;
+                        int j = bit % 3 + dy;
+                        shifted = i >= 0 && i < 3 && j >= 0 && j < 3 ? shifted | 1 << (i * 3 + j) : -1;
+                    }
+                    shift[mask] = shifted;
+                }
+            }
+        }
+    }
+
+    public SubsetSolver(Cell[][] cells, int width, int height, int mines) {
+        super(cells, width, height, mines);
+    }
+
+    public Map<Cell, Boolean> getKnownCells() {
+        byte[] states = snapshotStates();
+        // Whether each cell is known to be a mine, by cell id
+        Map<Integer, Boolean> known = new HashMap<>();
+        List<Constraint> constraints = new ArrayList<>();
+        Map<Long, List<Constraint>> byWindow = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+
+        for (Cell cell : getOpenShoreCells()) {
+            int x = cell.getX();
+            int y = cell.getY();
+            int value = states[neighbourIndex.id(x, y)];
+            int mask = 0;
+            for (int bit = 0; bit < WINDOW_BITS; bit++) {
+                int cx = x - 1 + bit / 3;
+                int cy = y - 1 + bit % 3;
+                if (cx < 0 || cx >= width || cy < 0 || cy >= height) {
+                    continue;
+                }
+                byte state = states[neighbourIndex.id(cx, cy)];
+                if (state == SNAPSHOT_CLOSED) {
+                    mask |= 1 << bit;
+                } else if (state == SNAPSHOT_FLAGGED) {
+                    value--;
+                }
+            }
+            addConstraint(new Constraint(x - 1, y - 1, mask, value), constraints, byWindow, seen);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // Take the known cells out of every constraint and find new ones
+            for (Constraint constraint : constraints) {
+                constraint.remove(known, this);
+                if (constraint.mask == 0) {
+                    continue;
+                }
+                int size = Integer.bitCount(constraint.mask);
+                if (constraint.value == 0 || constraint.value == size) {
+                    boolean mine = constraint.value != 0;
+                    for (int bit = 0; bit < WINDOW_BITS; bit++) {
+                        if ((constraint.mask >> bit & 1) != 0) {
+                            known.put(constraint.cellId(bit, this), mine);
+                        }
+                    }
+                    constraint.remove(known, this);
+                    changed = true;
+                }
+            }
+
+            // Add the difference of every pair where one is inside the other
+            List<Constraint> derived = new ArrayList<>();
+            for (Constraint outer : constraints) {
+                if (outer.mask == 0) {
+                    continue;
+                }
+                for (int dx = -REACH; dx <= REACH; dx++) {
+                    for (int dy = -REACH; dy <= REACH; dy++) {
+                        List<Constraint> nearby = byWindow.get(windowKey(outer.x0 + dx, outer.y0 + dy));
+                        if (nearby == null) {
+                            continue;
+                        }
+                        int[] shift = SHIFT[(dx + REACH) * OFFSETS + dy + REACH];
+                        for (Constraint inner : nearby) {
+                            if (inner == outer || inner.mask == 0) {
+                                continue;
+                            }
+                            int shifted = shift[inner.mask];
+                            if (shifted < 0 || shifted == outer.mask || (shifted & ~outer.mask) != 0) {
+                                continue;
+                            }
+                            derived.add(new Constraint(outer.x0, outer.y0, outer.mask & ~shifted,
+                                    outer.value - inner.value));
+                        }
+                    }
+                }
+            }
+            for (Constraint constraint : derived) {
+                changed |= addConstraint(constraint, constraints, byWindow, seen);
+            }
+        }
+
+        Map<Cell, Boolean> results = new HashMap<>();
+        known.forEach((id, mine) -> {
+            if (states[id] == SNAPSHOT_CLOSED) {
+                results.put(cellAt(id), mine);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * @return if the constraint was new and could be met.
+     */
+    private boolean addConstraint(Constraint constraint, List<Constraint> constraints,
+                                  Map<Long, List<Constraint>> byWindow, Set<Long> seen) {
+        if (constraint.mask == 0 || constraint.value < 0 || constraint.value > Integer.bitCount(constraint.mask)) {
+            return false;
+        }
+        long key = windowKey(constraint.x0, constraint.y0) << WINDOW_BITS | constraint.mask;
+        if (!seen.add(key)) {
+            return false;
+        }
+        constraints.add(constraint);
+        byWindow.computeIfAbsent(windowKey(constraint.x0, constraint.y0), k -> new ArrayList<>()).add(constraint);
+        return true;
+    }
+
+    private static long windowKey(int x0, int y0) {
+        return ((long) x0 << 32) ^ (y0 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The closed cells of a 3x3 window with its top left cell at (x0, y0),
+     * and how many of them are mines.
+     */
+    private static final class Constraint {
+        private final int x0;
+        private final int y0;
+        private int mask;
+        private int value;
+
+        private Constraint(int x0, int y0, int mask, int value) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.mask = mask;
+            this.value = value;
+        }
+
+        private int cellId(int bit, AbstractSolver solver) {
+            return solver.neighbourIndex.id(x0 + bit / 3, y0 + bit % 3);
+        }
+
+        /**
+         * Take the known cells out of the constraint.
+         */
+        private void remove(Map<Integer, Boolean> known, AbstractSolver solver) {
+            for (int bit = 0; bit < WINDOW_BITS && !known.isEmpty(); bit++) {
+                if ((mask >> bit & 1) == 0) {
+                    continue;
+                }
+                Boolean mine = known.get(cellId(bit, solver));
+                if (mine != null) {
+                    mask &= ~(1 << bit);
+                    value -= mine ? 1 : 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package main.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BoardTest {
+
+    // States of cells that are not open, which hold their number
+    private static final int CLOSED = 9;
+    private static final int FLAGGED = 10;
+
+    @Test
+    void openingMatchesRecursiveOpen() {
+        int width = 30;
+        int height = 16;
+        for (long seed = 0; seed < 50; seed++) {
+            BitSet mines = Positions.mines(width, height, 20, seed);
+            MineSweeper game = Positions.newGame(width, height, 20, seed);
+            Random random = new Random(seed);
+            // Flags, right or wrong, stop an opening spreading
+            for (int i = 0; i < 15; i++) {
+                int id = random.nextInt(width * height);
+                Positions.flag(game, id / height, id % height);
+            }
+
+            while (game.getState() == GameState.RUNNING) {
+                int id = random.nextInt(width * height);
+                if (game.getCell(id / height, id % height).getState() == CellState.OPEN) {
+                    continue;
+                }
+                int[] before = states(game);
+                int[] expected = before.clone();
+                openRecursively(mines, width, height, expected, id);
+                int[] opened = game.openCell(id / height, id % height);
+
+                int[] expectedOpened = IntStream.range(0, before.length)
+                        .filter(cell -> before[cell] != expected[cell])
+                        .toArray();
+                assertEquals(id, opened[0]);
+                assertArrayEquals(expectedOpened, IntStream.of(opened).sorted().toArray());
+                // Every cell is shown once the game is over
+                if (game.getState() == GameState.RUNNING) {
+                    assertArrayEquals(expected, states(game));
+                }
+            }
+        }
+    }
+
+    @Test
+    void largeOpeningsDoNotRecurse() {
+        // One mine in the corner, so the first opening is most of the board
+        int size = 1000;
+        BitSet mines = new BitSet();
+        mines.set(0);
+        MineSweeper game = new MineSweeper(size, size, 1, new MineField(size, size, mines));
+
+        int[] opened = game.openCell(size - 1, size - 1);
+
+        assertEquals(size * size - 1, opened.length);
+        assertEquals(size * size - 1, game.getOpenCells());
+        assertEquals(GameState.WON, game.getState());
+    }
+
+    /**
+     * @return the state of every cell, by cell id.
+     */
+    private static int[] states(MineSweeper game) {
+        int height = game.getHeight();
+        int[] states = new int[game.getWidth() * height];
+        for (int id = 0; id < states.length; id++) {
+            Cell cell = game.getCell(id / height, id % height);
+            switch (cell.getState()) {
+                case OPEN -> states[id] = cell.getNumber();
+                case FLAGGED -> states[id] = FLAGGED;
+                default -> states[id] = CLOSED;
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Open a cell and its neighbours as the game did before openings were
+     * flood filled: by recursing into each closed neighbour of a cell with no
+     * neighbouring mines.
+     */
+    private static void openRecursively(BitSet mines, int width, int height, int[] states, int id) {
+        int x = id / height;
+        int y = id % height;
+        states[id] = Positions.number(mines, width, height, x, y);
+        if (states[id] != 0) {
+            return;
+        }
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); i++) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); j++) {
+                if (states[i * height + j] == CLOSED) {
+                    openRecursively(mines, width, height, states, i * height + j);
+                }
+            }
+        }
+    }
+}
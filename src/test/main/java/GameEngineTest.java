@@ -0,0 +1,150 @@
+package main.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class GameEngineTest {
+
+    @Test
+    void copiesAreIndependent() {
+        GameEngine engine = new GameEngine(30, 16, 99, 1);
+        openFirstOpening(engine, Positions.mines(30, 16, 99, 1));
+        GameView before = engine.view();
+        GameEngine copy = engine.copy();
+
+        playRandomly(copy, new Random(1));
+        assertSameGame(before, engine.view());
+
+        GameView copied = copy.view();
+        playRandomly(engine, new Random(2));
+        assertSameGame(copied, copy.view());
+    }
+
+    @Test
+    void restoreGoesBackToTheView() {
+        for (long seed = 0; seed < 10; seed++) {
+            GameEngine engine = new GameEngine(16, 16, 40, seed);
+            openFirstOpening(engine, Positions.mines(16, 16, 40, seed));
+            GameView start = engine.view();
+            byte[] startStates = start.copyStates();
+
+            // Play to the end, win or lose, then go back
+            playRandomly(engine, new Random(seed));
+            assertNotEquals(GameState.RUNNING, engine.getGameState());
+            engine.restore(start);
+
+            assertSameGame(start, engine.view());
+            // Views are not changed by later moves
+            assertArrayEquals(startStates, start.copyStates());
+            // and the game can be played again from there
+            playRandomly(engine, new Random(seed));
+            assertNotEquals(GameState.RUNNING, engine.getGameState());
+        }
+    }
+
+    @Test
+    void engineAgreesWithTheBoard() {
+        for (long seed = 0; seed < 20; seed++) {
+            MineSweeper game = new MineSweeper(16, 16, 40, seed);
+            GameEngine engine = new GameEngine(16, 16, 40, seed);
+            playTogether(engine, game, new Random(seed));
+        }
+    }
+
+    @Test
+    void gameCarriesOnFromTheEngine() {
+        for (long seed = 0; seed < 20; seed++) {
+            GameEngine engine = new GameEngine(16, 16, 40, seed);
+            openFirstOpening(engine, Positions.mines(16, 16, 40, seed));
+            MineSweeper game = new MineSweeper(engine);
+            assertSameCells(engine, game);
+            playTogether(engine, game, new Random(seed));
+        }
+    }
+
+    /**
+     * Make the same random moves on the engine and the game until the game
+     * is over, checking that they agree after every move.
+     */
+    private static void playTogether(GameEngine engine, MineSweeper game, Random random) {
+        NeighbourIndex index = engine.getNeighbourIndex();
+        while (engine.getGameState() == GameState.RUNNING) {
+            int id = random.nextInt(index.size());
+            int x = index.x(id);
+            int y = index.y(id);
+            if (random.nextInt(5) == 0) {
+                boolean flagged = engine.getState(id) != GameEngine.FLAGGED;
+                assertEquals(engine.setFlagged(id, flagged), game.setFlagged(x, y, flagged));
+            } else {
+                assertEquals(engine.open(id), game.openCell(x, y).length);
+            }
+            assertEquals(engine.getGameState(), game.getState());
+            assertEquals(engine.getOpenCount(), game.getOpenCells());
+            if (engine.getGameState() == GameState.RUNNING) {
+                assertSameCells(engine, game);
+            }
+        }
+    }
+
+    private static void assertSameCells(GameEngine engine, MineSweeper game) {
+        NeighbourIndex index = engine.getNeighbourIndex();
+        for (int cell = 0; cell < index.size(); cell++) {
+            assertEquals(engine.getState(cell), stateOf(game.getCell(index.x(cell), index.y(cell))));
+        }
+    }
+
+    /**
+     * Open the first cell with no neighbouring mines.
+     */
+    private static void openFirstOpening(GameEngine engine, BitSet mines) {
+        int height = engine.getHeight();
+        for (int id = 0; ; id++) {
+            if (Positions.number(mines, engine.getWidth(), height, id / height, id % height) == 0) {
+                engine.open(id);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Open or flag random cells until the game is over.
+     */
+    private static void playRandomly(GameEngine engine, Random random) {
+        int size = engine.getNeighbourIndex().size();
+        while (engine.getGameState() == GameState.RUNNING) {
+            int id = random.nextInt(size);
+            if (random.nextInt(5) == 0) {
+                engine.setFlagged(id, engine.getState(id) != GameEngine.FLAGGED);
+            } else if (engine.getState(id) == GameEngine.CLOSED) {
+                engine.open(id);
+            }
+        }
+    }
+
+    private static void assertSameGame(GameView expected, GameView actual) {
+        assertArrayEquals(expected.copyStates(), actual.copyStates());
+        assertEquals(expected.getGameState(), actual.getGameState());
+        assertEquals(expected.getOpenCount(), actual.getOpenCount());
+        assertEquals(expected.getFlagCount(), actual.getFlagCount());
+    }
+
+    /**
+     * @return the cell's state as the engine encodes it.
+     */
+    private static byte stateOf(Cell cell) {
+        switch (cell.getState()) {
+            case OPEN:
+                return (byte) cell.getNumber();
+            case FLAGGED:
+                return GameEngine.FLAGGED;
+            default:
+                return GameEngine.CLOSED;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package main.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class MineFieldTest {
+
+    @Test
+    void seededFieldsAreReproducible() throws NoSuchAlgorithmException {
+        for (long seed = 0; seed < 20; seed++) {
+            assertEquals(numbers(new MineField(16, 30, 99, seed)), numbers(new MineField(16, 30, 99, seed)));
+        }
+        assertNotEquals(numbers(new MineField(16, 30, 99, 1)), numbers(new MineField(16, 30, 99, 2)));
+    }
+
+    @Test
+    void plantedMinesAreReproducible() {
+        for (long seed = 0; seed < 20; seed++) {
+            assertEquals(MineField.plantMines(16, 30, 99, new Random(seed)),
+                    MineField.plantMines(16, 30, 99, new Random(seed)));
+            assertEquals(99, MineField.plantMines(16, 30, 99, new Random(seed)).cardinality());
+        }
+    }
+
+    @Test
+    void seededFieldsHaveThePlantedMines() throws NoSuchAlgorithmException {
+        for (long seed = 0; seed < 20; seed++) {
+            BitSet mines = MineField.plantMines(16, 30, 99, new Random(seed));
+            assertEquals(numbers(new MineField(16, 30, mines)), numbers(new MineField(16, 30, 99, seed)));
+        }
+    }
+
+    @Test
+    void seededGamesHaveTheSeedsMines() throws NoSuchAlgorithmException {
+        for (long seed = 0; seed < 5; seed++) {
+            MineSweeper game = new MineSweeper(Difficulty.EXPERT, seed);
+            game.endGame();
+            StringBuilder numbers = new StringBuilder();
+            for (int x = 0; x < 30; x++) {
+                for (int y = 0; y < 16; y++) {
+                    numbers.append(game.getCell(x, y).getNumber()).append(',');
+                }
+            }
+            assertEquals(numbers(new MineField(16, 30, 99, seed)), numbers.toString());
+        }
+    }
+
+    /**
+     * Open the field and uncover every square.
+     *
+     * @return the number of every square (-1 for mines), as a string to
+     * compare.
+     */
+    private static String numbers(MineField field) throws NoSuchAlgorithmException {
+        field.open("hello");
+        StringBuilder numbers = new StringBuilder();
+        int mines = 0;
+        for (int x = 0; x < 30; x++) {
+            for (int y = 0; y < 16; y++) {
+                int number = field.uncover(x, y);
+                numbers.append(number).append(',');
+                mines += number == -1 ? 1 : 0;
+            }
+        }
+        assertEquals(99, mines);
+        return numbers.toString();
+    }
+}
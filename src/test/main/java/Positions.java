@@ -0,0 +1,237 @@
+package main.java;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+/**
+ * Seeded positions for the tests, played by a player who knows where the
+ * mines are. After the first opening each move opens a random safe cell on
+ * the frontier or flags a random mine on it, so every position is one a real
+ * player could reach, and every flag is correct.
+ */
+public final class Positions {
+
+    // Mines of the games made here, so tests can check answers against them
+    private static final Map<MineSweeper, BitSet> MINES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Positions() {
+    }
+
+    /**
+     * As {@link #of(int, int, int, int, int, boolean)}, with the player
+     * flagging mines.
+     */
+    public static Iterable<MineSweeper> of(int width, int height, int mines, int games, int stride) {
+        return of(width, height, mines, games, stride, true);
+    }
+
+    /**
+     * Play the given number of seeded games and stop at every stride'th
+     * running position that has a safe cell on its frontier. Each position
+     * is the game being played, so it must not be changed, and it only lasts
+     * until the next position is asked for.
+     *
+     * @param flags whether the player flags mines, or only opens cells.
+     */
+    public static Iterable<MineSweeper> of(int width, int height, int mines, int games, int stride,
+                                           boolean flags) {
+        return () -> new Player(width, height, mines, games, stride, flags);
+    }
+
+    /**
+     * @return a new game with the mines of {@link #mines(int, int, int, long)}.
+     */
+    public static MineSweeper newGame(int width, int height, int mines, long seed) {
+        MineSweeper game = new MineSweeper(width, height, mines, seed);
+        MINES.put(game, mines(width, height, mines, seed));
+        return game;
+    }
+
+    /**
+     * @param game a game made by {@link #newGame(int, int, int, long)}.
+     */
+    public static boolean isMine(MineSweeper game, int x, int y) {
+        return MINES.get(game).get(x * game.getHeight() + y);
+    }
+
+    /**
+     * @return the mines of a seeded game, with bit x * height + y set if
+     * there is a mine at (x, y).
+     */
+    public static BitSet mines(int width, int height, int mines, long seed) {
+        return MineField.plantMines(height, width, mines, new Random(seed));
+    }
+
+    /**
+     * Open the first cell with no neighbouring mines, or the first safe cell
+     * if there is none.
+     */
+    public static void openFirstOpening(MineSweeper game, BitSet mines) {
+        int width = game.getWidth();
+        int height = game.getHeight();
+        int firstSafe = -1;
+        for (int id = 0; id < width * height; id++) {
+            int number = number(mines, width, height, id / height, id % height);
+            if (number == 0) {
+                game.openCell(id / height, id % height);
+                return;
+            }
+            if (number > 0 && firstSafe < 0) {
+                firstSafe = id;
+            }
+        }
+        game.openCell(firstSafe / height, firstSafe % height);
+    }
+
+    /**
+     * Guess as a player who knows where the mines are would.
+     */
+    public static void openSafeCell(MineSweeper game, BitSet mines, Random random) {
+        int height = game.getHeight();
+        List<Integer> cells = new ArrayList<>();
+        for (int id = 0; id < game.getWidth() * height; id++) {
+            if (game.getCell(id / height, id % height).getState() == CellState.CLOSED && !mines.get(id)) {
+                cells.add(id);
+            }
+        }
+        int id = cells.get(random.nextInt(cells.size()));
+        game.openCell(id / height, id % height);
+    }
+
+    public static void flag(MineSweeper game, int x, int y) {
+        game.setFlagged(x, y, true);
+    }
+
+    /**
+     * @return the number of the cell, whether it is open or not, or -1 if it
+     * is a mine.
+     */
+    public static int number(BitSet mines, int width, int height, int x, int y) {
+        if (mines.get(x * height + y)) {
+            return -1;
+        }
+        int number = 0;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); i++) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); j++) {
+                number += mines.get(i * height + j) ? 1 : 0;
+            }
+        }
+        return number;
+    }
+
+    private static final class Player implements Iterator<MineSweeper> {
+        private final int width;
+        private final int height;
+        private final int mineCount;
+        private final int games;
+        private final int stride;
+        private final boolean flags;
+        private long seed = -1;
+        private MineSweeper game;
+        private BitSet mines;
+        private Random random;
+        private int move;
+        private boolean ready;
+
+        private Player(int width, int height, int mineCount, int games, int stride, boolean flags) {
+            this.width = width;
+            this.height = height;
+            this.mineCount = mineCount;
+            this.games = games;
+            this.stride = stride;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready) {
+                if (game != null && isRunning()) {
+                    play();
+                    move++;
+                } else if (++seed < games) {
+                    mines = mines(width, height, mineCount, seed);
+                    game = newGame(width, height, mineCount, seed);
+                    random = new Random(seed);
+                    openFirstOpening(game, mines);
+                    move = 0;
+                } else {
+                    return false;
+                }
+                ready = isRunning() && move % stride == 0 && !frontier(false).isEmpty();
+            }
+            return true;
+        }
+
+        @Override
+        public MineSweeper next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return game;
+        }
+
+        /**
+         * @return if the game is running and has safe cells left to open,
+         * which the game does not always notice when the last one is opened.
+         */
+        private boolean isRunning() {
+            if (game.getState() != GameState.RUNNING) {
+                return false;
+            }
+            for (int id = 0; id < width * height; id++) {
+                if (!mines.get(id) && game.getCell(id / height, id % height).getState() != CellState.OPEN) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void play() {
+            List<Integer> safe = frontier(false);
+            List<Integer> mineCells = frontier(true);
+            if (flags && !mineCells.isEmpty() && random.nextInt(4) == 0) {
+                int id = mineCells.get(random.nextInt(mineCells.size()));
+                flag(game, id / height, id % height);
+            } else if (!safe.isEmpty()) {
+                int id = safe.get(random.nextInt(safe.size()));
+                game.openCell(id / height, id % height);
+            } else {
+                openSafeCell(game, mines, random);
+            }
+        }
+
+        /**
+         * @return ids of the closed cells next to an open cell that are, or
+         * are not, mines.
+         */
+        private List<Integer> frontier(boolean mine) {
+            List<Integer> cells = new ArrayList<>();
+            for (int id = 0; id < width * height; id++) {
+                if (mines.get(id) == mine && game.getCell(id / height, id % height).getState() == CellState.CLOSED
+                        && hasOpenNeighbour(id / height, id % height)) {
+                    cells.add(id);
+                }
+            }
+            return cells;
+        }
+
+        private boolean hasOpenNeighbour(int x, int y) {
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); i++) {
+                for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); j++) {
+                    if (game.getCell(i, j).getState() == CellState.OPEN) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package main.java.sims;
+
+import main.java.CellState;
+import main.java.MineField;
+import main.java.MineSweeper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoardCorpusTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenBoardsReadBack() throws IOException {
+        Path path = directory.resolve("expert.corpus");
+        BoardCorpus.write(path, 30, 16, 99, 50, 7);
+        BoardCorpus corpus = BoardCorpus.open(path);
+
+        assertEquals(30, corpus.getWidth());
+        assertEquals(16, corpus.getHeight());
+        assertEquals(99, corpus.getMines());
+        assertEquals(50, corpus.size());
+        // The corpus holds the boards planted from its seed, in order
+        Random random = new Random(7);
+        for (int i = 0; i < corpus.size(); i++) {
+            assertEquals(MineField.plantMines(16, 30, 99, random), corpus.getMineBits(i));
+        }
+    }
+
+    @Test
+    void gamesHaveTheCorpusMines() throws IOException {
+        Path path = directory.resolve("beginner.corpus");
+        BoardCorpus.write(path, 9, 9, 10, 5, 3);
+        BoardCorpus corpus = BoardCorpus.open(path);
+
+        for (int i = 0; i < corpus.size(); i++) {
+            BitSet mines = corpus.getMineBits(i);
+            MineSweeper game = corpus.createGame(i);
+            game.endGame();
+            for (int x = 0; x < 9; x++) {
+                for (int y = 0; y < 9; y++) {
+                    assertEquals(CellState.OPEN, game.getCell(x, y).getState());
+                    assertEquals(mines.get(x * 9 + y), game.getCell(x, y).getNumber() == -1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void indexOutsideTheCorpusIsRejected() throws IOException {
+        Path path = directory.resolve("small.corpus");
+        BoardCorpus.write(path, 9, 9, 10, 3, 0);
+        BoardCorpus corpus = BoardCorpus.open(path);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> corpus.getMineBits(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> corpus.getMineBits(-1));
+    }
+
+    @Test
+    void truncatedCorpusIsRejected() throws IOException {
+        Path path = directory.resolve("truncated.corpus");
+        BoardCorpus.write(path, 9, 9, 10, 3, 0);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> BoardCorpus.open(path));
+    }
+}
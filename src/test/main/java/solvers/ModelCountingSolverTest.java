@@ -0,0 +1,32 @@
+package main.java.solvers;
+
+import main.java.Cell;
+import main.java.MineSweeper;
+import main.java.Positions;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ModelCountingSolverTest {
+
+    @Test
+    void probabilitiesMatchModelEnumeration() {
+        assertMatchesEnumeration(9, 9, 10, 20);
+        assertMatchesEnumeration(16, 16, 40, 10);
+    }
+
+    private static void assertMatchesEnumeration(int width, int height, int mines, int games) {
+        for (MineSweeper game : Positions.of(width, height, mines, games, 3)) {
+            ProbabilitySolver enumerating = new ProbabilitySolver(game.getCells(), width, height, mines);
+            ModelCountingSolver counting = new ModelCountingSolver(game.getCells(), width, height, mines);
+
+            Map<Cell, BigFraction> expected = enumerating.getProbabilities();
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, counting.getProbabilities());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package main.java.solvers;
+
+import main.java.Cell;
+import main.java.CellState;
+import main.java.GameState;
+import main.java.MineSweeper;
+import main.java.Positions;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MyPBSolverTest {
+
+    private static final int PROBE_THREADS = 4;
+
+    @Test
+    void parallelProbingMatchesSequential() {
+        for (MineSweeper game : Positions.of(30, 16, 99, 6, 4)) {
+            MyPBSolver sequential = newSolver(game, false);
+            try (MyPBSolver parallel = newSolver(game, false)) {
+                parallel.setProbeThreads(PROBE_THREADS);
+                assertEquals(sequential.getKnownCells(), parallel.getKnownCells());
+            }
+        }
+    }
+
+    @Test
+    void knownCellsMatchExactProbabilities() {
+        long reusedModelHits = 0;
+        for (MineSweeper game : Positions.of(30, 16, 99, 6, 4)) {
+            MyPBSolver solver = newSolver(game, false);
+            Map<Cell, Boolean> known = closedCells(solver.getKnownCells());
+            reusedModelHits += solver.getReusedModelHits();
+
+            // A cell is known exactly when it is a mine in all or none of the
+            // models, which the model counting solver works out on its own
+            ModelCountingSolver counting = new ModelCountingSolver(game.getCells(), game.getWidth(),
+                    game.getHeight(), game.getMines());
+            Map<Cell, Boolean> expected = new HashMap<>();
+            counting.getProbabilities().forEach((cell, probability) -> {
+                if (probability.equals(BigFraction.ZERO) || probability.equals(BigFraction.ONE)) {
+                    expected.put(cell, probability.equals(BigFraction.ONE));
+                }
+            });
+            assertEquals(closedCells(expected), known);
+        }
+        // Otherwise the models found were never reused and nothing was tested
+        assertTrue(reusedModelHits > 0);
+    }
+
+    @Test
+    void parallelSessionsMatchSequentialOverAGame() {
+        for (long seed = 0; seed < 4; seed++) {
+            BitSet mines = Positions.mines(30, 16, 99, seed);
+            MineSweeper game = Positions.newGame(30, 16, 99, seed);
+            Positions.openFirstOpening(game, mines);
+            MyPBSolver sequential = newSolver(game, true);
+            try (MyPBSolver parallel = newSolver(game, true)) {
+                parallel.setProbeThreads(PROBE_THREADS);
+                Random random = new Random(seed);
+                while (game.getState() == GameState.RUNNING) {
+                    Map<Cell, Boolean> known = sequential.getKnownCells();
+                    assertEquals(known, parallel.getKnownCells());
+                    if (!play(game, known)) {
+                        Positions.openSafeCell(game, mines, random);
+                    }
+                }
+            }
+        }
+    }
+
+    static MyPBSolver newSolver(MineSweeper game, boolean incremental) {
+        return new MyPBSolver(game.getCells(), game.getWidth(), game.getHeight(), game.getMines(), incremental);
+    }
+
+    /**
+     * Flag the known mines and open the known safe cells.
+     *
+     * @return if anything changed.
+     */
+    static boolean play(MineSweeper game, Map<Cell, Boolean> known) {
+        boolean changed = false;
+        for (var pair : known.entrySet()) {
+            Cell cell = pair.getKey();
+            if (cell.getState() != CellState.CLOSED) {
+                continue;
+            }
+            if (pair.getValue()) {
+                Positions.flag(game, cell.getX(), cell.getY());
+            } else {
+                game.openCell(cell.getX(), cell.getY());
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static Map<Cell, Boolean> closedCells(Map<Cell, Boolean> cells) {
+        Map<Cell, Boolean> closed = new HashMap<>(cells);
+        closed.keySet().removeIf(cell -> cell.getState() != CellState.CLOSED);
+        return closed;
+    }
+}
@@ -0,0 +1,72 @@
+package main.java.solvers;
+
+import main.java.Cell;
+import main.java.MineSweeper;
+import main.java.Positions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the solvers that find some of the known cells cheaply, checked
+ * against {@link MyPBSolver}, which finds all of them.
+ */
+class PartialSolverTest {
+
+    interface Factory {
+        Solver create(Cell[][] cells, int width, int height, int mines);
+    }
+
+    /**
+     * @return each solver's name, how it is made, and whether it takes flags
+     * to be mines.
+     */
+    static Stream<Arguments> solvers() {
+        return Stream.of(
+                Arguments.of("pattern", (Factory) PatternSolver::new, true),
+                Arguments.of("subset", (Factory) SubsetSolver::new, true),
+                Arguments.of("gaussian", (Factory) GaussianSolver::new, false));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("solvers")
+    void findsOnlyCellsThePBSolverFinds(String name, Factory factory, boolean trustsFlags) {
+        int found = 0;
+        // The PB solver solves for flagged cells, so a solver that takes
+        // flags to be mines is only compared with it on unflagged positions
+        for (MineSweeper game : Positions.of(30, 16, 99, 8, 3, !trustsFlags)) {
+            Map<Cell, Boolean> known = newSolver(factory, game).getKnownCells();
+            Map<Cell, Boolean> pbKnown = MyPBSolverTest.newSolver(game, false).getKnownCells();
+            for (var pair : known.entrySet()) {
+                assertEquals(pbKnown.get(pair.getKey()), pair.getValue(), pair.getKey().toString());
+            }
+            found += known.size();
+        }
+        // Otherwise nothing was checked
+        assertTrue(found > 0);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("solvers")
+    void knownCellsAreRightWhenFlagsAre(String name, Factory factory, boolean trustsFlags) {
+        int found = 0;
+        for (MineSweeper game : Positions.of(30, 16, 99, 8, 3)) {
+            for (var pair : newSolver(factory, game).getKnownCells().entrySet()) {
+                Cell cell = pair.getKey();
+                assertEquals(Positions.isMine(game, cell.getX(), cell.getY()), pair.getValue(), cell.toString());
+                found++;
+            }
+        }
+        assertTrue(found > 0);
+    }
+
+    private static Solver newSolver(Factory factory, MineSweeper game) {
+        return factory.create(game.getCells(), game.getWidth(), game.getHeight(), game.getMines());
+    }
+}
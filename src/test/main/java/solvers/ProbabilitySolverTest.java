@@ -0,0 +1,40 @@
+package main.java.solvers;
+
+import main.java.Cell;
+import main.java.MineSweeper;
+import main.java.Positions;
+import org.apache.commons.math3.fraction.BigFraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProbabilitySolverTest {
+
+    @Test
+    void fastProbabilitiesAreWithinTolerance() {
+        assertWithinTolerance(16, 16, 40, 10);
+        assertWithinTolerance(30, 16, 99, 6);
+        // Big enough that the model counts do not fit in a double
+        assertWithinTolerance(50, 50, 400, 2);
+    }
+
+    private static void assertWithinTolerance(int width, int height, int mines, int games) {
+        for (MineSweeper game : Positions.of(width, height, mines, games, 5)) {
+            ModelCountingSolver exact = new ModelCountingSolver(game.getCells(), width, height, mines);
+            ModelCountingSolver fast = new ModelCountingSolver(game.getCells(), width, height, mines);
+            fast.setFastArithmetic(true);
+
+            Map<Cell, BigFraction> expected = exact.getProbabilities();
+            Map<Cell, Double> actual = fast.getApproximateProbabilities();
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((cell, probability) -> assertTrue(
+                    Math.abs(probability.doubleValue() - actual.get(cell)) <= ProbabilitySolver.FAST_TOLERANCE,
+                    cell + ": " + actual.get(cell) + " is not " + probability.doubleValue()));
+        }
+    }
+}